@@ -23,21 +23,31 @@
 
 package net.datenwerke.sandbox;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.AllPermission;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.Permission;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import net.datenwerke.sandbox.jvm.PrioritizedJvmTask;
+import net.datenwerke.sandbox.jvm.exceptions.JvmTaskExpiredException;
 import net.datenwerke.sandbox.permissions.ClassPermission;
 import net.datenwerke.sandbox.permissions.FileEqualsPermission;
 import net.datenwerke.sandbox.permissions.FilePermission;
@@ -103,6 +113,11 @@ public class SandboxContext implements Serializable {
 	private TimeUnit maximumRunTimeUnit = TimeUnit.MILLISECONDS;
 	private RuntimeMode maximumRuntimeMode  = RuntimeMode.ABSOLUTE_TIME;
 	
+	/* scheduling of remote tasks; only relevant for the controlling jvm */
+	private transient int remotePriority = PrioritizedJvmTask.NORM_PRIORITY;
+	private transient String tenant;
+	private transient long remoteQueueTimeout = -1;
+	
 	
 	/* sandbox loader */
 	private Collection<URL> jarsForApplicationLoader = new HashSet<URL>();
@@ -149,6 +164,15 @@ public class SandboxContext implements Serializable {
 	
 	private Collection<URL> whitelistedJars = new HashSet<URL>();
 	
+	private Collection<String> immutableTypes = new HashSet<String>();
+	private transient boolean parallelBridging = false;
+	
+	private static final AtomicLong VERSIONS = new AtomicLong();
+	
+	private transient long version;
+	private transient String contentHash;
+	private transient long contentHashStamp;
+	
 	private boolean passAll = false;
 	private boolean bypassClassAccessChecks = false;
 	private boolean bypassPermissionAccessChecks = false;
@@ -184,6 +208,7 @@ public class SandboxContext implements Serializable {
 	 * @param url URL pointing to a jar.
 	 */
 	public void addJarToWhitelist(URL url){
+		changed();
 		whitelistedJars.add(url);
 	}
 	
@@ -193,7 +218,7 @@ public class SandboxContext implements Serializable {
 	 * @return
 	 */
 	public Collection<URL> getWhitelistedJars() {
-		return whitelistedJars;
+		return Collections.unmodifiableCollection(whitelistedJars);
 	}
 	
 	/**
@@ -204,6 +229,7 @@ public class SandboxContext implements Serializable {
 	 * @param pkg
 	 */
 	public void addPackagePermission(AccessType type, String pkg){
+		changed();
 		addPackagePermission(type, Mode.PREFIX, pkg);
 	}
 	
@@ -216,6 +242,7 @@ public class SandboxContext implements Serializable {
 	 * @param pkg
 	 */
 	public void addPackagePermission(AccessType type, Mode mode, String pkg){
+		changed();
 		switch(type){
 		case PERMIT:
 			if(mode == Mode.PREFIX || pkg.endsWith("."))
@@ -238,6 +265,7 @@ public class SandboxContext implements Serializable {
 	 * @param wpkg
 	 */
 	public void addPackagePermission(PackagePermission wpkg) {
+		changed();
 		setBypassPackageAccessChecks(false);
 		complexPackageWhitelist.add(wpkg);
 	}
@@ -250,6 +278,7 @@ public class SandboxContext implements Serializable {
 	 * @param classes
 	 */
 	public void addClassPermission(AccessType type, String... classes){
+		changed();
 		for(String clazz : classes)
 			addClassPermission(type, Mode.NORMAL, clazz);
 	}
@@ -262,6 +291,7 @@ public class SandboxContext implements Serializable {
 	 * @param clazz
 	 */
 	public void addClassPermission(AccessType type, String clazz){
+		changed();
 		addClassPermission(type, Mode.NORMAL, clazz);
 	}
 	
@@ -274,6 +304,7 @@ public class SandboxContext implements Serializable {
 	 * @param clazz
 	 */
 	public void addClassPermission(AccessType type, Mode mode,  String clazz){
+		changed();
 		switch(type){
 		case PERMIT:
 			if(mode == Mode.PREFIX || clazz.endsWith("."))
@@ -297,6 +328,7 @@ public class SandboxContext implements Serializable {
 	 * @param wclass
 	 */
 	public void addClassPermission(ClassPermission wclass) {
+		changed();
 		complexClassWhitelist.add(wclass);
 	}
 	
@@ -308,6 +340,7 @@ public class SandboxContext implements Serializable {
 	 * @param context
 	 */
 	public void addSubloaderContext(String clazz, SandboxContext context){
+		changed();
 		addSubloaderContext(clazz, Mode.NORMAL, context);
 	}
 	
@@ -319,6 +352,7 @@ public class SandboxContext implements Serializable {
 	 * @param context
 	 */
 	public void addSubloaderContext(URL url, SandboxContext context){
+		changed();
 		subLoaderContextByJar.put(url, context);
 	}
 	
@@ -331,6 +365,7 @@ public class SandboxContext implements Serializable {
 	 * @param context
 	 */
 	public void addSubloaderContext(String clazz, Mode mode, SandboxContext context) {
+		changed();
 		if(mode == Mode.PREFIX || clazz.endsWith("."))
 			subLoaderContextByClassPrefix.put(clazz, context);
 		else
@@ -342,7 +377,7 @@ public class SandboxContext implements Serializable {
 	 * @return
 	 */
 	public Map<URL, SandboxContext> getSubLoaderContextByJar() {
-		return subLoaderContextByJar;
+		return Collections.unmodifiableMap(subLoaderContextByJar);
 	}
 	
 	/**
@@ -350,7 +385,7 @@ public class SandboxContext implements Serializable {
 	 * @return
 	 */
 	public Map<String, SandboxContext> getSubLoaderContextByClassMap() {
-		return subLoaderContextByClass;
+		return Collections.unmodifiableMap(subLoaderContextByClass);
 	}
 
 	/**
@@ -358,7 +393,7 @@ public class SandboxContext implements Serializable {
 	 * @return
 	 */
 	public Map<String, SandboxContext> getSubLoaderContextByClassPrefixMap() {
-		return subLoaderContextByClassPrefix;
+		return Collections.unmodifiableMap(subLoaderContextByClassPrefix);
 	}
 	
 	/**
@@ -366,6 +401,7 @@ public class SandboxContext implements Serializable {
 	 * @param loaderEnhancer
 	 */
 	public void setLoaderEnhancer(SandboxLoaderEnhancer loaderEnhancer) {
+		changed();
 		this.loaderEnhancer = loaderEnhancer;
 	}
 	
@@ -382,6 +418,7 @@ public class SandboxContext implements Serializable {
 	 * @param clazz
 	 */
 	public void addClassForApplicationLoader(String clazz){
+		changed();
 		addClassForApplicationLoader(clazz, Mode.NORMAL);
 	}
 	
@@ -390,6 +427,7 @@ public class SandboxContext implements Serializable {
 	 * @param classes
 	 */
 	public void addClassForApplicationLoader(String... classes){
+		changed();
 		for(String clazz : classes)
 			addClassForApplicationLoader(clazz, Mode.NORMAL);
 	}
@@ -400,6 +438,7 @@ public class SandboxContext implements Serializable {
 	 * @param mode
 	 */
 	public void addClassForApplicationLoader(String clazz, Mode mode){
+		changed();
 		if(mode == Mode.PREFIX || clazz.endsWith("."))
 			classPrefixesForApplicationLoader.add(clazz);
 		else
@@ -411,6 +450,7 @@ public class SandboxContext implements Serializable {
 	 * @param url
 	 */
 	public void addJarForApplicationLoader(URL url){
+		changed();
 		jarsForApplicationLoader.add(url);
 	}
 	
@@ -419,7 +459,7 @@ public class SandboxContext implements Serializable {
 	 * @return
 	 */
 	public Collection<URL> getJarsForApplicationLoader() {
-		return jarsForApplicationLoader;
+		return Collections.unmodifiableCollection(jarsForApplicationLoader);
 	}
 	
 	/**
@@ -427,7 +467,7 @@ public class SandboxContext implements Serializable {
 	 * @return
 	 */
 	public Collection<String> getClassesForApplicationLoader() {
-		return classesForApplicationLoader;
+		return Collections.unmodifiableCollection(classesForApplicationLoader);
 	}
 
 	/**
@@ -435,7 +475,7 @@ public class SandboxContext implements Serializable {
 	 * @return
 	 */
 	public Collection<String> getClassPrefixesForApplicationLoader() {
-		return classPrefixesForApplicationLoader;
+		return Collections.unmodifiableCollection(classPrefixesForApplicationLoader);
 	}
 	
 	/**
@@ -443,6 +483,7 @@ public class SandboxContext implements Serializable {
 	 * @param clazz
 	 */
 	public void addClassForSandboxLoader(String clazz){
+		changed();
 		addClassForSandboxLoader(clazz, Mode.NORMAL);
 	}
 	
@@ -451,6 +492,7 @@ public class SandboxContext implements Serializable {
 	 * @param classes
 	 */
 	public void addClassForSandboxLoader(String... classes){
+		changed();
 		for(String clazz : classes)
 			addClassForSandboxLoader(clazz, Mode.NORMAL);
 	}
@@ -461,6 +503,7 @@ public class SandboxContext implements Serializable {
 	 * @param mode
 	 */
 	public void addClassForSandboxLoader(String clazz, Mode mode){
+		changed();
 		if(mode == Mode.PREFIX || clazz.endsWith("."))
 			classPrefixesForSandboxLoader.add(clazz);
 		else
@@ -472,7 +515,7 @@ public class SandboxContext implements Serializable {
 	 * @return
 	 */
 	public Collection<String> getClassesForSandboxLoader() {
-		return classesForSandboxLoader;
+		return Collections.unmodifiableCollection(classesForSandboxLoader);
 	}
 	
 	/**
@@ -480,7 +523,7 @@ public class SandboxContext implements Serializable {
 	 * @return
 	 */
 	public Collection<String> getClassPrefixesForSandboxLoader() {
-		return classPrefixesForSandboxLoader;
+		return Collections.unmodifiableCollection(classPrefixesForSandboxLoader);
 	}
 	
 	
@@ -498,6 +541,7 @@ public class SandboxContext implements Serializable {
 	 * @param debug
 	 */
 	public void setDebug(boolean debug) {
+		changed();
 		this.debug = debug;
 	}
 	
@@ -516,9 +560,128 @@ public class SandboxContext implements Serializable {
 	 * @param runRemote
 	 */
 	public void setRunRemote(boolean runRemote) {
+		changed();
 		this.runRemote = runRemote;
 	}
 	
+	/**
+	 * Returns the priority with which remote tasks of this context are scheduled.
+	 * 
+	 * @see #setRemotePriority(int)
+	 * @return
+	 */
+	public int getRemotePriority() {
+		return remotePriority;
+	}
+	
+	/**
+	 * Sets the priority with which remote tasks of this context are scheduled. Tasks with higher 
+	 * priority are dispatched to the jvm pool ahead of tasks with lower priority. 
+	 * 
+	 * @see PrioritizedJvmTask#MIN_PRIORITY
+	 * @see PrioritizedJvmTask#MAX_PRIORITY
+	 * @param remotePriority
+	 */
+	public void setRemotePriority(int remotePriority) {
+		changed();
+		if(remotePriority < PrioritizedJvmTask.MIN_PRIORITY || remotePriority > PrioritizedJvmTask.MAX_PRIORITY)
+			throw new IllegalArgumentException("priority must be between " + PrioritizedJvmTask.MIN_PRIORITY + " and " + PrioritizedJvmTask.MAX_PRIORITY);
+		this.remotePriority = remotePriority;
+	}
+	
+	/**
+	 * Returns the tenant remote tasks of this context are accounted to.
+	 * 
+	 * @see #setTenant(String)
+	 * @return
+	 */
+	public String getTenant() {
+		return tenant;
+	}
+	
+	/**
+	 * Sets the tenant remote tasks of this context are accounted to. Tasks of the same 
+	 * priority are dispatched round robin between tenants.
+	 * 
+	 * @param tenant
+	 */
+	public void setTenant(String tenant) {
+		changed();
+		this.tenant = tenant;
+	}
+	
+	/**
+	 * Returns the time (in milliseconds) a remote task may wait in the queue of 
+	 * the jvm pool, or -1 if tasks do not expire.
+	 * 
+	 * @return
+	 */
+	public long getRemoteQueueTimeout() {
+		return remoteQueueTimeout;
+	}
+	
+	/**
+	 * Sets the time a remote task may wait in the queue of the jvm pool. Tasks
+	 * that were not dispatched in time are dropped and fail with a 
+	 * {@link JvmTaskExpiredException}.
+	 * 
+	 * Set to -1 to disable.
+	 * 
+	 * @param timeout
+	 * @param unit
+	 */
+	public void setRemoteQueueTimeout(long timeout, TimeUnit unit) {
+		changed();
+		this.remoteQueueTimeout = timeout < 0 ? -1 : unit.toMillis(timeout);
+	}
+	
+	/**
+	 * Declares the given classes as immutable. When results are bridged out of the sandbox
+	 * instances of these classes that need not be cloned are passed through without looking at the
+	 * objects they reference. Enums, common value types and classes annotated with 
+	 * {@link net.datenwerke.transloader.clone.reflect.decide.Immutable} are immutable by default.
+	 * 
+	 * @see net.datenwerke.transloader.clone.reflect.decide.ImmutableTypes
+	 * @param classes
+	 */
+	public void addImmutableType(String... classes){
+		changed();
+		for(String clazz : classes)
+			immutableTypes.add(clazz);
+	}
+	
+	/**
+	 * Returns the names of the classes declared as immutable.
+	 * 
+	 * @see #addImmutableType(String...)
+	 * @return
+	 */
+	public Collection<String> getImmutableTypes() {
+		return Collections.unmodifiableCollection(immutableTypes);
+	}
+	
+	/**
+	 * Returns true if results are cloned in parallel when they are bridged.
+	 * 
+	 * @see #setParallelBridging(boolean)
+	 * @return
+	 */
+	public boolean isParallelBridging() {
+		return parallelBridging;
+	}
+	
+	/**
+	 * If set, results of sandboxed calls are cloned into the caller's class loader on several
+	 * threads, with large arrays and the collections backed by them being split up. This only pays off
+	 * for results with very many objects.
+	 * 
+	 * @param parallelBridging
+	 */
+	public void setParallelBridging(boolean parallelBridging) {
+		changed();
+		this.parallelBridging = parallelBridging;
+	}
+	
 	/**
 	 * Returns true if sandboxed code is to be executed in its own thread.
 	 * 
@@ -535,6 +698,7 @@ public class SandboxContext implements Serializable {
 	 * @param runInThread
 	 */
 	public void setRunInThread(boolean runInThread) {
+		changed();
 		this.runInThread = runInThread;
 	}
 
@@ -564,6 +728,7 @@ public class SandboxContext implements Serializable {
 	 * @return
 	 */
 	public void setMaximumStackDepth(int maximumStackDepth) {
+		changed();
 		this.maximumStackDepth = maximumStackDepth;
 	}
 
@@ -587,6 +752,7 @@ public class SandboxContext implements Serializable {
 	 * @param maximumRunTime
 	 */
 	public void setMaximumRunTime(long maximumRunTime) {
+		changed();
 		this.maximumRunTime = maximumRunTime;
 	}
 	
@@ -600,6 +766,7 @@ public class SandboxContext implements Serializable {
 	 * @param mode
 	 */
 	public void setMaximumRunTime(long maximumRunTime, TimeUnit unit, RuntimeMode mode) {
+		changed();
 		this.maximumRunTime = maximumRunTime;
 		this.maximumRunTimeUnit = unit;
 		this.maximumRuntimeMode = mode;
@@ -623,6 +790,7 @@ public class SandboxContext implements Serializable {
 	 * @param maximumRunTimeUnit
 	 */
 	public void setMaximumRunTimeUnit(TimeUnit maximumRunTimeUnit) {
+		changed();
 		this.maximumRunTimeUnit = maximumRunTimeUnit;
 	}
 	
@@ -647,6 +815,7 @@ public class SandboxContext implements Serializable {
 	 * @param maximumRuntimeMode
 	 */
 	public void setMaximumRuntimeMode(RuntimeMode maximumRuntimeMode) {
+		changed();
 		this.maximumRuntimeMode = maximumRuntimeMode;
 	}
 
@@ -666,6 +835,7 @@ public class SandboxContext implements Serializable {
 	 * @param passAll true to allow any request
 	 */
 	public void setPassAll(boolean passAll) {
+		changed();
 		this.passAll = passAll;
 	}
 	
@@ -688,6 +858,7 @@ public class SandboxContext implements Serializable {
 	 * @param name
 	 */
 	public void setName(String name) {
+		changed();
 		this.name = name;
 	}
 	
@@ -706,6 +877,7 @@ public class SandboxContext implements Serializable {
 	 * @param codesource
 	 */
 	public void setCodesource(String codesource) {
+		changed();
 		this.codesource = codesource;
 	}
 	
@@ -728,6 +900,7 @@ public class SandboxContext implements Serializable {
 	 * @param removeFinalizers
 	 */
 	public void setRemoveFinalizers(boolean removeFinalizers) {
+		changed();
 		this.removeFinalizers = removeFinalizers;
 	}
 
@@ -737,6 +910,7 @@ public class SandboxContext implements Serializable {
 	 * @param perm
 	 */
 	public void addSecurityPermission(AccessType type, SecurityPermission perm){
+		changed();
 		switch (type) {
 		case PERMIT:
 			if(! permissionWhitelist.containsKey(perm.getType()))
@@ -759,6 +933,7 @@ public class SandboxContext implements Serializable {
 	 * @param permission
 	 */
 	public void addFilePermission(FileAccess fileAccess, AccessType type, FilePermission permission){
+		changed();
 		switch(fileAccess){
 		case READ:
 			if(AccessType.PERMIT == type)
@@ -1095,6 +1270,7 @@ public class SandboxContext implements Serializable {
 	 * Convenience method to allow read access to anything on the classpath (java.class.path).
 	 */
 	public void addClasspath() {
+		changed();
 		for(String s : System.getProperty("java.class.path").split(":")){
 			if(s.endsWith(".jar"))
 				addFilePermission(FileAccess.READ, AccessType.PERMIT, new FileEqualsPermission(s));
@@ -1109,6 +1285,7 @@ public class SandboxContext implements Serializable {
 	 * Convenience method to allow read access to the home dir (java.home).
 	 */
 	public void addHome(){
+		changed();
 		String home = System.getProperty("java.home");
 		addFilePermission(FileAccess.READ, AccessType.PERMIT,new FilePrefixPermission(home));
 	}
@@ -1120,6 +1297,7 @@ public class SandboxContext implements Serializable {
 	 * @see SandboxLoader#DEFAULT_CODESOURCE_PREFIX
 	 */
 	public void addDefaultCodesourcePrefix(){
+		changed();
 		addFilePermission(FileAccess.READ, AccessType.PERMIT,new FilePrefixPermission(SandboxLoader.DEFAULT_CODESOURCE_PREFIX));
 	}
 
@@ -1128,6 +1306,7 @@ public class SandboxContext implements Serializable {
 	 * Convenience method to allow read and write access to the tmpdir (java.io.tmpdir).
 	 */
 	public void addTempDir() {
+		changed();
 		String dir = System.getProperty("java.io.tmpdir");
 		addFilePermission(FileAccess.READ, AccessType.PERMIT,new FilePrefixPermission(dir));
 		addFilePermission(FileAccess.WRITE, AccessType.PERMIT,new FilePrefixPermission(dir));
@@ -1138,6 +1317,7 @@ public class SandboxContext implements Serializable {
 	 * Convenience method to allow read access to the user's home dir (user.dir).
 	 */
 	public void addWorkDir() {
+		changed();
 		String dir = System.getProperty("user.dir");
 		addFilePermission(FileAccess.READ, AccessType.PERMIT, new FilePrefixPermission(dir));
 	}
@@ -1159,6 +1339,7 @@ public class SandboxContext implements Serializable {
 	 * @param bypassPermissionAccess
 	 */
 	public void setBypassPermissionAccessChecks(boolean bypassPermissionAccess) {
+		changed();
 		this.bypassPermissionAccessChecks = bypassPermissionAccess;
 	}
 	
@@ -1179,6 +1360,7 @@ public class SandboxContext implements Serializable {
 	 * @param bypassPackageAccess
 	 */
 	public void setBypassPackageAccessChecks(boolean bypassPackageAccess) {
+		changed();
 		this.bypassPackageAccessChecks = bypassPackageAccess;
 	}
 
@@ -1199,6 +1381,7 @@ public class SandboxContext implements Serializable {
 	 * @param bypassClassAccess
 	 */
 	public void setBypassClassAccessChecks(boolean bypassClassAccess) {
+		changed();
 		this.bypassClassAccessChecks = bypassClassAccess;
 	}
 	
@@ -1311,6 +1494,7 @@ public class SandboxContext implements Serializable {
 	}
 	
 	public void merge(SandboxContext context) {
+		changed();
 		mergeClassRestrictions(context);
 		mergePackageRestrictions(context);
 		mergeFilePermissions(context);
@@ -1321,6 +1505,7 @@ public class SandboxContext implements Serializable {
 		} catch(MalformedURLException e){
 			throw new IllegalStateException(e);
 		}
+		immutableTypes.addAll(context.immutableTypes);
 		
 		debug = context.debug;
 		passAll = context.passAll;
@@ -1334,6 +1519,10 @@ public class SandboxContext implements Serializable {
 		loaderEnhancer = context.loaderEnhancer;
 		
 		runRemote = context.runRemote;
+		remotePriority = context.remotePriority;
+		tenant = context.tenant;
+		remoteQueueTimeout = context.remoteQueueTimeout;
+		parallelBridging = context.parallelBridging;
 		runInThread = context.runInThread;
 		maximumRunTime = context.maximumRunTime;
 		maximumRunTimeUnit = context.maximumRunTimeUnit;
@@ -1341,6 +1530,67 @@ public class SandboxContext implements Serializable {
 		maximumStackDepth = context.maximumStackDepth;
 	}
 
+	/**
+	 * Returns a hash of the serialized form of this context. Contexts 
+	 * with equal configuration have the same hash, which allows remote agents
+	 * to cache contexts (see {@link net.datenwerke.sandbox.jvm.server.SandboxContextCache}).
+	 * 
+	 * The hash is computed once and recomputed only after this context or one of its
+	 * subloader contexts has been changed through its add and set methods. The collections 
+	 * returned by the getters are read-only views, such that no change can bypass these methods.
+	 * 
+	 * @return
+	 */
+	public synchronized String getContentHash() {
+		long stamp = getModificationStamp();
+		if(null == contentHash || stamp != contentHashStamp){
+			contentHash = computeContentHash();
+			contentHashStamp = stamp;
+		}
+		return contentHash;
+	}
+	
+	private void changed() {
+		version = VERSIONS.incrementAndGet();
+	}
+	
+	/* the latest version of this context and its subloader contexts, grows with every change to any of them */
+	private long getModificationStamp() {
+		long stamp = version;
+		for(SandboxContext context : subLoaderContextByJar.values())
+			stamp = Math.max(stamp, context.getModificationStamp());
+		for(SandboxContext context : subLoaderContextByClass.values())
+			stamp = Math.max(stamp, context.getModificationStamp());
+		for(SandboxContext context : subLoaderContextByClassPrefix.values())
+			stamp = Math.max(stamp, context.getModificationStamp());
+		return stamp;
+	}
+	
+	private String computeContentHash() {
+		try{
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			ObjectOutputStream oos = new ObjectOutputStream(new DigestOutputStream(new OutputStream() {
+				@Override
+				public void write(int b) {
+				}
+				@Override
+				public void write(byte[] b, int off, int len) {
+				}
+			}, digest));
+			oos.writeObject(this);
+			oos.close();
+			
+			StringBuilder hash = new StringBuilder();
+			for(byte b : digest.digest())
+				hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			return hash.toString();
+		} catch(IOException e){
+			throw new IllegalStateException("Could not serialize context", e);
+		} catch(NoSuchAlgorithmException e){
+			throw new IllegalStateException(e);
+		}
+	}
+
 	@Override
 	public SandboxContext clone() {
 		SandboxContext clone = new SandboxContext();
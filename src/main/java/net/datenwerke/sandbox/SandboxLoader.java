@@ -32,11 +32,14 @@ import java.security.CodeSource;
 import java.security.Permissions;
 import java.security.ProtectionDomain;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -78,6 +81,7 @@ final public class SandboxLoader extends ClassLoader {
 			
 		BYPASSCLASSES.add("net.datenwerke.sandbox.SandboxedCallResult");
 		BYPASSCLASSES.add("net.datenwerke.sandbox.SandboxedCallResultImpl");
+		BYPASSCLASSES.add("net.datenwerke.sandbox.SandboxedCallStatistics");
 		BYPASSCLASSES.add("net.datenwerke.sandbox.SandboxService");
 		BYPASSCLASSES.add("net.datenwerke.sandbox.SandboxContext");
 		
@@ -128,6 +132,8 @@ final public class SandboxLoader extends ClassLoader {
 	private SandboxLoaderEnhancer enhancer;
 	
 	private ClassLoader parent;
+	
+	private final AtomicLong definedClassCount = new AtomicLong();
 
 	/**
 	 * Instantiates a new SandboxLoader with the current ClassLoader as parent.
@@ -311,6 +317,7 @@ final public class SandboxLoader extends ClassLoader {
 						if (res != null) {
 							byte[] cBytes = enhance(name, res.getBytes());
 							clazz = defineClass(name, cBytes, 0, cBytes.length, domain);
+							definedClassCount.incrementAndGet();
 							trustedSource = true;
 						}
 					}
@@ -333,6 +340,7 @@ final public class SandboxLoader extends ClassLoader {
 							/* load and define class */
 							cBytes = enhance(name, cBytes);
 							clazz = defineClass(name, cBytes, 0, cBytes.length, domain);
+							definedClassCount.incrementAndGet();
 						} finally {
 							if(null != in) {
 								try {
@@ -527,7 +535,34 @@ final public class SandboxLoader extends ClassLoader {
             throw new RuntimeException("Could not create protection domain.");
         }
 		
-		return defineClass(name, classBytes, 0, classBytes.length, domain);
+		clazz = defineClass(name, classBytes, 0, classBytes.length, domain);
+		definedClassCount.incrementAndGet();
+		
+		return clazz;
+	}
+	
+	/**
+	 * Returns the number of classes defined by this loader and its subloaders.
+	 * 
+	 * @return
+	 */
+	long getDefinedClassCount() {
+		return getDefinedClassCount(Collections.newSetFromMap(new IdentityHashMap<SandboxLoader, Boolean>()));
+	}
+	
+	private long getDefinedClassCount(Set<SandboxLoader> visited) {
+		if(! visited.add(this))
+			return 0;
+		
+		long count = definedClassCount.get();
+		for(SandboxLoader loader : subLoaderByJar.values())
+			count += loader.getDefinedClassCount(visited);
+		for(SandboxLoader loader : subLoaderCache.values())
+			count += loader.getDefinedClassCount(visited);
+		for(SandboxLoader loader : subLoaderPrefixCache.values())
+			count += loader.getDefinedClassCount(visited);
+		
+		return count;
 	}
 		
 	
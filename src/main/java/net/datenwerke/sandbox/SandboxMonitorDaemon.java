@@ -65,6 +65,8 @@ public class SandboxMonitorDaemon implements Runnable {
 	public void run() {
 		while(!shutdown){
 			try{
+				long loopStart = System.nanoTime();
+				
 				Iterator<SandboxMonitoredThread> iterator = monitorQueue.iterator();
 				while(iterator.hasNext()){
 					SandboxMonitoredThread monitor = iterator.next();
@@ -80,6 +82,8 @@ public class SandboxMonitorDaemon implements Runnable {
 					testRuntime(monitor);
 				}
 				
+				sandboxService.getServiceMonitor().monitorLoopFinished(System.nanoTime() - loopStart);
+				
 				try {
 					Thread.sleep(checkInterval);
 				} catch (InterruptedException e) {
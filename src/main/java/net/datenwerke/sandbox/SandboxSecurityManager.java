@@ -40,6 +40,7 @@ final public class SandboxSecurityManager extends SecurityManager {
 
 	private final InheritableThreadLocal<byte[]> restrict = new InheritableThreadLocal<byte[]>();
 	private final InheritableThreadLocal<SandboxContext> contextHolder = new InheritableThreadLocal<SandboxContext>();
+	private final InheritableThreadLocal<SandboxedCallStatisticsCollector> statisticsHolder = new InheritableThreadLocal<SandboxedCallStatisticsCollector>();
 	
 	private final ThreadLocal<Boolean> isInCheck = new ThreadLocal<Boolean>();
 	private final ThreadLocal<Boolean> debug = new ThreadLocal<Boolean>();
@@ -76,6 +77,19 @@ final public class SandboxSecurityManager extends SecurityManager {
 			debug.set(true);
 	}
 	
+	/**
+	 * Attaches a collector to the current thread that is informed about all security
+	 * checks performed until the restriction is released.
+	 * 
+	 * @param collector
+	 */
+	void attachStatisticsCollector(SandboxedCallStatisticsCollector collector){
+		if(null != restrict.get())
+			throw new IllegalStateException();
+		
+		statisticsHolder.set(collector);
+	}
+	
 	public boolean isRestricted(){
 		return null != restrict.get();
 	}
@@ -88,6 +102,7 @@ final public class SandboxSecurityManager extends SecurityManager {
 		if(Arrays.equals(password, restrict.get())){
 			restrict.set(null);
 			contextHolder.set(null);
+			statisticsHolder.set(null);
 			isInCheck.set(null);
 			debug.set(null);
 		} else
@@ -102,6 +117,15 @@ final public class SandboxSecurityManager extends SecurityManager {
 		return null != debug.get();
 	}
 	
+	private long startCheck(SandboxedCallStatisticsCollector statistics){
+		return null == statistics ? 0 : System.nanoTime();
+	}
+	
+	private void endCheck(SandboxedCallStatisticsCollector statistics, long start){
+		if(null != statistics)
+			statistics.securityChecked(System.nanoTime() - start);
+	}
+	
 	private void setInCheck(boolean check){
 		if(check)
 			isInCheck.set(true);
@@ -115,6 +139,8 @@ final public class SandboxSecurityManager extends SecurityManager {
 		
 		if(isRestricted() && ! isInCheck()){
 			setInCheck(true);
+			SandboxedCallStatisticsCollector statistics = statisticsHolder.get();
+			long start = startCheck(statistics);
 			
 			try{
 				SandboxContext context = contextHolder.get();
@@ -135,6 +161,7 @@ final public class SandboxSecurityManager extends SecurityManager {
 				throw new AccessControlException("Permission not granted: " + perm, perm);
 			} finally {
 				setInCheck(false);
+				endCheck(statistics, start);
 			}
 		}
 	}
@@ -150,6 +177,8 @@ final public class SandboxSecurityManager extends SecurityManager {
 	public void checkClassAccess(String clazz) {
 		if(isRestricted() && ! isInCheck()){
 			setInCheck(true);
+			SandboxedCallStatisticsCollector statistics = statisticsHolder.get();
+			long start = startCheck(statistics);
 
 			try{
 				SandboxContext rs = contextHolder.get();
@@ -170,6 +199,7 @@ final public class SandboxSecurityManager extends SecurityManager {
 				}
 			} finally {
 				setInCheck(false);
+				endCheck(statistics, start);
 			}
 		}
 	}
@@ -184,6 +214,8 @@ final public class SandboxSecurityManager extends SecurityManager {
 				return;
 			
 			setInCheck(true);
+			SandboxedCallStatisticsCollector statistics = statisticsHolder.get();
+			long start = startCheck(statistics);
 
 			try{
 				SandboxContext rs = contextHolder.get();
@@ -204,6 +236,7 @@ final public class SandboxSecurityManager extends SecurityManager {
 				}
 			} finally {
 				setInCheck(false);
+				endCheck(statistics, start);
 			}
 		}
 	}
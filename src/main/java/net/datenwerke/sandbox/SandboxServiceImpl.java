@@ -35,6 +35,8 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -48,6 +50,7 @@ import net.datenwerke.sandbox.exception.SandboxedTaskKilledException;
 import net.datenwerke.sandbox.handlers.BadThreadKillHandler;
 import net.datenwerke.sandbox.handlers.ContextRegisteredHandler;
 import net.datenwerke.sandbox.handlers.SandboxHandler;
+import net.datenwerke.sandbox.jmx.SandboxServiceMonitor;
 import net.datenwerke.sandbox.jvm.JvmFreelancer;
 import net.datenwerke.sandbox.jvm.JvmPool;
 import net.datenwerke.sandbox.jvm.JvmPoolConfigImpl;
@@ -56,9 +59,9 @@ import net.datenwerke.sandbox.jvm.JvmSandboxTask;
 import net.datenwerke.sandbox.jvm.exceptions.JvmKilledThreadRuntimeException;
 import net.datenwerke.sandbox.jvm.exceptions.JvmKilledUnsafeThreadRuntimeException;
 import net.datenwerke.sandbox.securitypermissions.SandboxRuntimePermission;
-import net.datenwerke.transloader.DefaultTransloader;
+import net.datenwerke.transloader.ClassWrapper;
 import net.datenwerke.transloader.ObjectWrapper;
-import net.datenwerke.transloader.Transloader;
+import net.datenwerke.transloader.clone.reflect.decide.ImmutableTypes;
 import net.datenwerke.transloader.configure.CloningStrategy;
 
 import com.google.inject.Inject;
@@ -104,6 +107,10 @@ public class SandboxServiceImpl implements SandboxService {
 	private Thread monitorWatchdogThread;
 	private long monitorDaemonCheckInterval = 10;
 	private long monitorWatchdogCheckInterval = 10000;
+	
+	private ForkJoinPool bridgingPool;
+	
+	protected final SandboxServiceMonitor serviceMonitor;
 
 
 
@@ -147,6 +154,9 @@ public class SandboxServiceImpl implements SandboxService {
 		if(enabled)
 			enable();
 		
+		serviceMonitor = new SandboxServiceMonitor(this);
+		serviceMonitor.register();
+		
 		monitorQueue = new ConcurrentLinkedQueue<SandboxMonitoredThread>();
 		startMonitorDaemon();
 		
@@ -296,6 +306,45 @@ public class SandboxServiceImpl implements SandboxService {
 		shutdownJvmPool();
 		shutdownMonitorWatchdog();
 		shutdownMonitorDaemon();
+		shutdownBridgingPool();
+		serviceMonitor.unregister();
+	}
+	
+	/**
+	 * Returns the pool on which results are cloned if they are bridged in parallel. 
+	 * The pool is created on first use.
+	 * 
+	 * @see SandboxContext#setParallelBridging(boolean)
+	 * @return
+	 */
+	protected synchronized ForkJoinPool getBridgingPool() {
+		if(null == bridgingPool)
+			bridgingPool = new ForkJoinPool();
+		return bridgingPool;
+	}
+	
+	private synchronized void shutdownBridgingPool() {
+		if(null != bridgingPool)
+			bridgingPool.shutdown();
+		bridgingPool = null;
+	}
+	
+	/**
+	 * Returns the management bean of this service.
+	 * 
+	 * @return
+	 */
+	public SandboxServiceMonitor getServiceMonitor() {
+		return serviceMonitor;
+	}
+	
+	/**
+	 * Returns the number of sandboxed threads currently watched by the monitor daemon.
+	 * 
+	 * @return
+	 */
+	public int getMonitoredThreadCount() {
+		return monitorQueue.size();
 	}
 	
 	/*
@@ -531,15 +580,32 @@ public class SandboxServiceImpl implements SandboxService {
 		if(isRemoteService() && context.isDebug())
 			logger.log(Level.INFO, "run remote");
 		
+		SandboxedCallStatisticsCollector statistics = new SandboxedCallStatisticsCollector();
+		long definedClasses = getDefinedClassCount(loader);
+		
+		serviceMonitor.callStarted();
+		long callStart = System.nanoTime();
+		boolean success = false;
 		try{
 			Object result = null;
 			if(! isRemoteService() && context.isRunRemote() && null != jvmPool ){
-				result = jvmPool.addTask(new JvmSandboxTask(call, context, runInContext, args)).get().getRaw();
+				Future<SandboxedCallResult> future = jvmPool.addTask(new JvmSandboxTask(call, context, runInContext, args));
+				SandboxedCallResult remoteResult;
+				try{
+					remoteResult = future.get();
+				} catch(InterruptedException e){
+					/* the caller gave up, free the jvm */
+					future.cancel(true);
+					Thread.currentThread().interrupt();
+					throw new SandboxException("interrupted while waiting for remote jvm", e);
+				}
+				success = true;
+				return new SandboxedCallResultImpl<V>(remoteResult.getRaw(), remoteResult.getStatistics(), context);
 			} else if(context.isRunInThread()){
 				Method runMethod = getCalleableMethod(call, loader);
 				Object instance = getCalleableInstance(call, loader, args);
 				
-				SandboxedThread thread = new SandboxedThread(this, runMethod, instance, context, runInContext);
+				SandboxedThread thread = new SandboxedThread(this, runMethod, instance, context, runInContext, statistics);
 				thread.setContextClassLoader(loader);
 				
 				/* put in monitor queue */
@@ -569,19 +635,28 @@ public class SandboxServiceImpl implements SandboxService {
 				Method runMethod = getCalleableMethod(call, loader);
 				Object instance = getCalleableInstance(call, loader, args);
 				
-				if(runInContext)
-					result = runMethod.invoke(instance);
-				else {
-					String pw = restrict(context);
-					try{
+				statistics.begin();
+				try{
+					if(runInContext)
 						result = runMethod.invoke(instance);
-					} finally {
-						releaseRestriction(pw);
+					else {
+						if(isActive())
+							getManager().attachStatisticsCollector(statistics);
+						
+						String pw = restrict(context);
+						try{
+							result = runMethod.invoke(instance);
+						} finally {
+							releaseRestriction(pw);
+						}
 					}
+				} finally {
+					statistics.end();
 				}
 			}
 			
-			return new SandboxedCallResultImpl<V>(result);
+			success = true;
+			return new SandboxedCallResultImpl<V>(result, statistics.getStatistics(getDefinedClassCount(loader) - definedClasses), context);
 		} catch(Exception e){
 			if(e instanceof JvmKilledUnsafeThreadRuntimeException)
 				throw (JvmKilledUnsafeThreadRuntimeException)e;
@@ -590,9 +665,17 @@ public class SandboxServiceImpl implements SandboxService {
 			if(e instanceof InvocationTargetException && null != e.getCause())
 				throw new SandboxException(e.getCause().getClass().getName() + ": " + e.getCause().getMessage(), e);
 			throw new SandboxException(e);
+		} finally {
+			serviceMonitor.callFinished(System.nanoTime() - callStart, success);
 		}
 	}
 
+	private long getDefinedClassCount(ClassLoader loader) {
+		if(loader instanceof SandboxLoader)
+			return ((SandboxLoader)loader).getDefinedClassCount();
+		return 0;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see net.datenwerke.sandbox.SandboxService#isRemoteService()
@@ -706,6 +789,20 @@ public class SandboxServiceImpl implements SandboxService {
 	 */
 	@Override
 	public Object bridge(Object result, ClassLoader loader) {
+		return bridge(result, loader, null);
+	}
+	
+	/**
+	 * Tries to convert object value to an object recognizable by the given Classloader, passing
+	 * through instances of the types the context declares as immutable.
+	 * 
+	 * @see SandboxContext#addImmutableType(String...)
+	 * @param result
+	 * @param loader
+	 * @param context
+	 * @return
+	 */
+	public Object bridge(Object result, ClassLoader loader, SandboxContext context) {
 		if(null == result)
 			return null;
 		
@@ -714,12 +811,38 @@ public class SandboxServiceImpl implements SandboxService {
 		if(null != result.getClass().getClassLoader() && result.getClass().getClassLoader().equals(loader))
 			return result;
 		
-		Transloader transloader = new DefaultTransloader(CloningStrategy.newMinimalInstance());
-		ObjectWrapper resultWrapped = transloader.wrap(result);
+		ImmutableTypes immutables = ImmutableTypes.DEFAULT;
+		if(null != context && ! context.getImmutableTypes().isEmpty())
+			immutables = new ImmutableTypes(context.getImmutableTypes());
+		
+		net.datenwerke.transloader.clone.CloningStrategy cloner = null != context && context.isParallelBridging() ?
+				CloningStrategy.newParallelMinimalInstance(immutables, getBridgingPool()) :
+				CloningStrategy.newMinimalInstance(immutables);
+		
+		/* the wrapper is only used for cloning, no need to collect the class loaders of the whole graph */
+		ObjectWrapper resultWrapped = new ObjectWrapper(result, cloner, ClassWrapper.getClassLoaderFrom(result));
 		
 		return resultWrapped.cloneWith(loader);
 	}
 
+	/**
+	 * Kills the sandboxed threads that were started by the given thread.
+	 * 
+	 * @param callingThread
+	 * @param exception
+	 * @return true if a thread was killed
+	 */
+	protected boolean killThreadsOf(Thread callingThread, SandboxedTaskKilledException exception) {
+		boolean killed = false;
+		for(SandboxMonitoredThread monitor : monitorQueue){
+			if(monitor.getCallingThread() == callingThread && monitor.isAlive()){
+				kill(monitor, exception);
+				killed = true;
+			}
+		}
+		return killed;
+	}
+
 	void kill(SandboxMonitoredThread monitor, SandboxedTaskKilledException exception) {
 		boolean safe = false;
 		try{
@@ -732,6 +855,8 @@ public class SandboxServiceImpl implements SandboxService {
 			}
 		} catch(Exception ignore){}
 		
+		serviceMonitor.threadKilled(exception.getMessage(), safe);
+		
 		if(! safe){
 			if(! isRemoteService())
 				logger.log(Level.SEVERE, "killed potentially unsafe thread");
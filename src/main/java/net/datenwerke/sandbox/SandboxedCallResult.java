@@ -64,6 +64,13 @@ public interface SandboxedCallResult<V> extends Serializable {
 	 * @return
 	 */
 	Object get(Object obj);
+	
+	/**
+	 * Returns the resources consumed by the sandboxed call that produced this result.
+	 * 
+	 * @return
+	 */
+	SandboxedCallStatistics getStatistics();
 
 	
 }
\ No newline at end of file
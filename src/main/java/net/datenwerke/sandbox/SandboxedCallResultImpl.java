@@ -49,8 +49,23 @@ public class SandboxedCallResultImpl<V> implements SandboxedCallResult<V> {
 	 */
 	public final Object raw;
 	
+	private final SandboxedCallStatistics statistics;
+	
+	/* only used locally to bridge the result */
+	private transient SandboxContext context;
+	
 	public SandboxedCallResultImpl(Object raw) {
+		this(raw, SandboxedCallStatistics.EMPTY);
+	}
+	
+	public SandboxedCallResultImpl(Object raw, SandboxedCallStatistics statistics) {
+		this(raw, statistics, null);
+	}
+	
+	public SandboxedCallResultImpl(Object raw, SandboxedCallStatistics statistics, SandboxContext context) {
 		this.raw = raw;
+		this.statistics = null == statistics ? SandboxedCallStatistics.EMPTY : statistics;
+		this.context = context;
 	}
 	
 	@Override
@@ -70,7 +85,12 @@ public class SandboxedCallResultImpl<V> implements SandboxedCallResult<V> {
 	
 	@Override
 	public Object get(ClassLoader loader){
-		return SandboxServiceImpl.getInstance().bridge(raw, null != loader ? loader : ClassLoader.getSystemClassLoader());
+		return ((SandboxServiceImpl) SandboxServiceImpl.getInstance()).bridge(raw, null != loader ? loader : ClassLoader.getSystemClassLoader(), context);
+	}
+	
+	@Override
+	public SandboxedCallStatistics getStatistics() {
+		return statistics;
 	}
 
 	
@@ -0,0 +1,146 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean containing the resources consumed by a single sandboxed call.
+ * 
+ * All times are given in nanoseconds. Values that could not be measured
+ * on the current platform (for example thread cpu time or allocated bytes) 
+ * are reported as -1.
+ * 
+ * @see SandboxedCallResult#getStatistics()
+ * @author Arno Mittelbach
+ *
+ */
+public class SandboxedCallStatistics implements Serializable {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -3215478302265601137L;
+	
+	public static final SandboxedCallStatistics EMPTY = new SandboxedCallStatistics(-1, -1, -1, -1, -1, -1);
+	
+	private final long wallTime;
+	private final long cpuTime;
+	private final long allocatedBytes;
+	private final long classesLoaded;
+	private final long permissionChecks;
+	private final long securityCheckTime;
+	
+	public SandboxedCallStatistics(long wallTime, long cpuTime,
+			long allocatedBytes, long classesLoaded, long permissionChecks,
+			long securityCheckTime) {
+		this.wallTime = wallTime;
+		this.cpuTime = cpuTime;
+		this.allocatedBytes = allocatedBytes;
+		this.classesLoaded = classesLoaded;
+		this.permissionChecks = permissionChecks;
+		this.securityCheckTime = securityCheckTime;
+	}
+
+	/**
+	 * The time (in nanoseconds) that passed between starting and finishing the call.
+	 * @return
+	 */
+	public long getWallTime() {
+		return wallTime;
+	}
+	
+	/**
+	 * The wall time converted to the given unit.
+	 * 
+	 * @param unit
+	 * @return
+	 */
+	public long getWallTime(TimeUnit unit) {
+		return wallTime < 0 ? wallTime : unit.convert(wallTime, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * The cpu time (in nanoseconds) consumed by the thread executing the call.
+	 * @return
+	 */
+	public long getCpuTime() {
+		return cpuTime;
+	}
+	
+	/**
+	 * The cpu time converted to the given unit.
+	 * 
+	 * @param unit
+	 * @return
+	 */
+	public long getCpuTime(TimeUnit unit) {
+		return cpuTime < 0 ? cpuTime : unit.convert(cpuTime, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * The number of bytes allocated on the heap by the thread executing the call.
+	 * @return
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * The number of classes defined by the {@link SandboxLoader} (including its subloaders) 
+	 * during the call.
+	 * @return
+	 */
+	public long getClassesLoaded() {
+		return classesLoaded;
+	}
+
+	/**
+	 * The number of permission, class and package checks performed by the 
+	 * {@link SandboxSecurityManager} during the call.
+	 * @return
+	 */
+	public long getPermissionChecks() {
+		return permissionChecks;
+	}
+
+	/**
+	 * The time (in nanoseconds) spent in the {@link SandboxSecurityManager} during the call.
+	 * @return
+	 */
+	public long getSecurityCheckTime() {
+		return securityCheckTime;
+	}
+
+	@Override
+	public String toString() {
+		return "SandboxedCallStatistics [wallTime=" + wallTime + ", cpuTime="
+				+ cpuTime + ", allocatedBytes=" + allocatedBytes
+				+ ", classesLoaded=" + classesLoaded + ", permissionChecks="
+				+ permissionChecks + ", securityCheckTime=" + securityCheckTime
+				+ "]";
+	}
+	
+}
@@ -0,0 +1,114 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gathers the resources consumed by a single sandboxed call.
+ * 
+ * Cpu time and allocated bytes are measured for the thread that calls 
+ * {@link #begin()} and {@link #end()}. Security checks are reported by the 
+ * {@link SandboxSecurityManager} for the restricted thread and any thread
+ * it spawns.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+class SandboxedCallStatisticsCollector {
+
+	private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+	
+	private final AtomicLong permissionChecks = new AtomicLong();
+	private final AtomicLong securityCheckTime = new AtomicLong();
+	
+	private long wallStart = -1;
+	private long wallTime = -1;
+	private long cpuStart = -1;
+	private long cpuTime = -1;
+	private long allocStart = -1;
+	private long allocatedBytes = -1;
+	
+	void begin() {
+		cpuStart = currentCpuTime();
+		allocStart = currentAllocatedBytes();
+		wallStart = System.nanoTime();
+	}
+	
+	void end() {
+		if(wallStart < 0)
+			return;
+		
+		wallTime = System.nanoTime() - wallStart;
+		
+		long cpu = currentCpuTime();
+		if(cpuStart >= 0 && cpu >= 0)
+			cpuTime = cpu - cpuStart;
+		
+		long alloc = currentAllocatedBytes();
+		if(allocStart >= 0 && alloc >= 0)
+			allocatedBytes = alloc - allocStart;
+	}
+	
+	void securityChecked(long nanos) {
+		permissionChecks.incrementAndGet();
+		securityCheckTime.addAndGet(nanos);
+	}
+	
+	SandboxedCallStatistics getStatistics(long classesLoaded) {
+		return new SandboxedCallStatistics(
+				wallTime, 
+				cpuTime, 
+				allocatedBytes, 
+				classesLoaded, 
+				permissionChecks.get(), 
+				securityCheckTime.get());
+	}
+	
+	private long currentCpuTime() {
+		try{
+			if(! THREAD_BEAN.isCurrentThreadCpuTimeSupported() || ! THREAD_BEAN.isThreadCpuTimeEnabled())
+				return -1;
+			return THREAD_BEAN.getCurrentThreadCpuTime();
+		} catch(UnsupportedOperationException e){
+			return -1;
+		}
+	}
+	
+	private long currentAllocatedBytes() {
+		if(! (THREAD_BEAN instanceof com.sun.management.ThreadMXBean))
+			return -1;
+		
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+		try{
+			if(! bean.isThreadAllocatedMemorySupported() || ! bean.isThreadAllocatedMemoryEnabled())
+				return -1;
+			return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		} catch(UnsupportedOperationException e){
+			return -1;
+		}
+	}
+}
@@ -41,6 +41,7 @@ public class SandboxedThread extends Thread {
 	private final SandboxContext context;
 	private final SandboxService service;
 	private final boolean runInContext;
+	private final SandboxedCallStatisticsCollector statistics;
 
 	private boolean success = false;
 	private Object result;
@@ -60,8 +61,19 @@ public class SandboxedThread extends Thread {
 			Object instance, 
 			SandboxContext context, 
 			boolean runInContext){
+		this(service, method, instance, context, runInContext, new SandboxedCallStatisticsCollector());
+	}
+	
+	SandboxedThread(
+			SandboxService service, 
+			Method method, 
+			Object instance, 
+			SandboxContext context, 
+			boolean runInContext,
+			SandboxedCallStatisticsCollector statistics){
 		
 		this.service = service;
+		this.statistics = statistics;
 		this.method = method;
 		this.instance = instance;
 		this.context = context;
@@ -73,10 +85,15 @@ public class SandboxedThread extends Thread {
 	@Override
 	public void run() {
 		started = true;
+		statistics.begin();
 		try{
 			if(runInContext)
 				result = method.invoke(instance);
 			else {
+				SandboxSecurityManager manager = service.getManager();
+				if(null != manager)
+					manager.attachStatisticsCollector(statistics);
+				
 				String pw = service.restrict(context);
 				try{
 					result = method.invoke(instance);
@@ -87,7 +104,9 @@ public class SandboxedThread extends Thread {
 			success = true;
 		} catch (Exception e) {
 			this.exception = e;
-		}  
+		} finally {
+			statistics.end();
+		}
 	}
 	
 	public Object getResult() {
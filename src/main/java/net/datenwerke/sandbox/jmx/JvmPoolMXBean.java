@@ -0,0 +1,184 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jmx;
+
+import net.datenwerke.sandbox.jvm.JvmPool;
+
+/**
+ * Management interface of a {@link JvmPool}.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public interface JvmPoolMXBean {
+
+	public static final String OBJECT_NAME_PREFIX = "net.datenwerke.sandbox:type=JvmPool,name=";
+	
+	String getName();
+	
+	boolean isShutdown();
+	
+	/**
+	 * The number of jvms used to process tasks.
+	 * @return
+	 */
+	int getPoolSize();
+	
+	/**
+	 * The lower bound for the number of jvms of an elastic pool.
+	 * @return
+	 */
+	int getMinPoolSize();
+	
+	/**
+	 * The upper bound for the number of jvms of an elastic pool.
+	 * @return
+	 */
+	int getMaxPoolSize();
+	
+	/**
+	 * The number of jvms spawned due to load.
+	 * @return
+	 */
+	long getScaleUps();
+	
+	/**
+	 * The number of idle jvms that were retired.
+	 * @return
+	 */
+	long getScaleDowns();
+	
+	/**
+	 * The number of tasks processed by the jvm their context was assigned to.
+	 * @return
+	 */
+	long getAffinityHits();
+	
+	/**
+	 * The number of tasks an idle jvm took from the queue of another jvm.
+	 * @return
+	 */
+	long getStolenTasks();
+	
+	/**
+	 * The number of started jvms kept on standby.
+	 * @return
+	 */
+	int getSpareJvms();
+	
+	/**
+	 * The number of standby jvms that are ready to be used.
+	 * @return
+	 */
+	int getAvailableSpareJvms();
+	
+	/**
+	 * The number of jvms currently processing a task.
+	 * @return
+	 */
+	int getBusyWorkers();
+	
+	/**
+	 * The number of tasks waiting for a jvm.
+	 * @return
+	 */
+	int getQueueDepth();
+	
+	/**
+	 * The number of configured {@link net.datenwerke.sandbox.jvm.JvmFreelancer}s.
+	 * @return
+	 */
+	int getFreelancerSize();
+	
+	/**
+	 * The number of {@link net.datenwerke.sandbox.jvm.JvmFreelancer}s that can currently be acquired.
+	 * @return
+	 */
+	int getAvailableFreelancers();
+	
+	long getTasksSubmitted();
+	
+	long getTasksCompleted();
+	
+	long getTasksFailed();
+	
+	/**
+	 * The number of tasks that were rescheduled because their jvm died.
+	 * @return
+	 */
+	long getTasksRetried();
+	
+	/**
+	 * The number of jvms that were restarted (either due to a dead server or an unsafe kill).
+	 * @return
+	 */
+	long getJvmRestarts();
+	
+	/**
+	 * The number of jvms that were replaced as they reached a limit of the recycling policy.
+	 * @return
+	 */
+	long getJvmRecycles();
+	
+	/**
+	 * The number of unsafe kills reported by remote agents.
+	 * @return
+	 */
+	long getUnsafeKills();
+	
+	/**
+	 * The number of tasks that were dropped as they were not dispatched before their deadline.
+	 * @return
+	 */
+	long getTasksExpired();
+	
+	/**
+	 * The time tasks spent in the work queue.
+	 * @return
+	 */
+	LatencyStatistics getQueueWaitTime();
+	
+	/**
+	 * The time it took a remote agent to execute a task.
+	 * @return
+	 */
+	LatencyStatistics getExecutionTime();
+	
+	/**
+	 * Changes the number of jvms used to process tasks.
+	 * 
+	 * @param poolSize
+	 */
+	void resize(int poolSize);
+	
+	/**
+	 * Restarts all jvms of the pool.
+	 */
+	void restart();
+	
+	/**
+	 * Resets all counters and histograms.
+	 */
+	void resetStatistics();
+}
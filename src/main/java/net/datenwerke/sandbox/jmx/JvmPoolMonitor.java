@@ -0,0 +1,297 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jmx;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.datenwerke.sandbox.jvm.JvmPoolImpl;
+
+/**
+ * Default implementation of the {@link JvmPoolMXBean}. The {@link JvmPoolImpl}
+ * reports tasks and jvm restarts to this object.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public class JvmPoolMonitor implements JvmPoolMXBean {
+
+	private final Logger logger = Logger.getLogger(getClass().getName());
+	
+	private final JvmPoolImpl pool;
+	
+	private final AtomicLong tasksSubmitted = new AtomicLong();
+	private final AtomicLong tasksCompleted = new AtomicLong();
+	private final AtomicLong tasksFailed = new AtomicLong();
+	private final AtomicLong tasksRetried = new AtomicLong();
+	private final AtomicLong jvmRestarts = new AtomicLong();
+	private final AtomicLong jvmRecycles = new AtomicLong();
+	private final AtomicLong unsafeKills = new AtomicLong();
+	private final AtomicLong tasksExpired = new AtomicLong();
+	private final AtomicLong scaleUps = new AtomicLong();
+	private final AtomicLong scaleDowns = new AtomicLong();
+	
+	private final LatencyHistogram queueWaitTime = new LatencyHistogram();
+	private final LatencyHistogram executionTime = new LatencyHistogram();
+	
+	private ObjectName objectName;
+	
+	public JvmPoolMonitor(JvmPoolImpl pool) {
+		this.pool = pool;
+	}
+	
+	/**
+	 * Registers this bean with the platform MBeanServer. 
+	 */
+	public synchronized void register() {
+		if(null != objectName)
+			return;
+		
+		try{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(pool.getName()));
+			server.registerMBean(this, name);
+			objectName = name;
+		} catch(Exception e){
+			logger.log(Level.WARNING, "Could not register JvmPool MBean", e);
+		}
+	}
+	
+	/**
+	 * Removes this bean from the platform MBeanServer.
+	 */
+	public synchronized void unregister() {
+		if(null == objectName)
+			return;
+		
+		try{
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch(Exception e){
+			logger.log(Level.WARNING, "Could not unregister JvmPool MBean", e);
+		} finally {
+			objectName = null;
+		}
+	}
+	
+	public void taskSubmitted() {
+		tasksSubmitted.incrementAndGet();
+	}
+	
+	public void taskStarted(long waitNanos) {
+		queueWaitTime.record(waitNanos);
+	}
+	
+	public void taskFinished(long nanos, boolean success) {
+		executionTime.record(nanos);
+		if(success)
+			tasksCompleted.incrementAndGet();
+		else
+			tasksFailed.incrementAndGet();
+	}
+	
+	public void taskRetried() {
+		tasksRetried.incrementAndGet();
+	}
+	
+	public void unsafeKill() {
+		unsafeKills.incrementAndGet();
+	}
+	
+	public void taskExpired() {
+		tasksExpired.incrementAndGet();
+	}
+	
+	public void jvmRestarted() {
+		jvmRestarts.incrementAndGet();
+	}
+	
+	public void jvmRecycled() {
+		jvmRecycles.incrementAndGet();
+	}
+	
+	public void scaledUp() {
+		scaleUps.incrementAndGet();
+	}
+	
+	public void scaledDown() {
+		scaleDowns.incrementAndGet();
+	}
+	
+	@Override
+	public String getName() {
+		return pool.getName();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return pool.isShutdown();
+	}
+
+	@Override
+	public int getPoolSize() {
+		return pool.getPoolSize();
+	}
+	
+	@Override
+	public int getMinPoolSize() {
+		return pool.getMinPoolSize();
+	}
+	
+	@Override
+	public int getMaxPoolSize() {
+		return pool.getMaxPoolSize();
+	}
+	
+	@Override
+	public long getScaleUps() {
+		return scaleUps.get();
+	}
+	
+	@Override
+	public long getScaleDowns() {
+		return scaleDowns.get();
+	}
+	
+	@Override
+	public long getAffinityHits() {
+		return pool.getAffinityHits();
+	}
+	
+	@Override
+	public long getStolenTasks() {
+		return pool.getStolenTasks();
+	}
+	
+	@Override
+	public int getSpareJvms() {
+		return pool.getSpareJvmCount();
+	}
+	
+	@Override
+	public int getAvailableSpareJvms() {
+		return pool.getAvailableSpareCount();
+	}
+	
+	@Override
+	public int getBusyWorkers() {
+		return pool.getBusyWorkerCount();
+	}
+
+	@Override
+	public int getQueueDepth() {
+		return pool.getQueueSize();
+	}
+
+	@Override
+	public int getFreelancerSize() {
+		return pool.getFreelancerSize();
+	}
+
+	@Override
+	public int getAvailableFreelancers() {
+		return pool.getAvailableFreelancerCount();
+	}
+
+	@Override
+	public long getTasksSubmitted() {
+		return tasksSubmitted.get();
+	}
+
+	@Override
+	public long getTasksCompleted() {
+		return tasksCompleted.get();
+	}
+
+	@Override
+	public long getTasksFailed() {
+		return tasksFailed.get();
+	}
+	
+	@Override
+	public long getTasksRetried() {
+		return tasksRetried.get();
+	}
+
+	@Override
+	public long getJvmRestarts() {
+		return jvmRestarts.get();
+	}
+	
+	@Override
+	public long getJvmRecycles() {
+		return jvmRecycles.get();
+	}
+	
+	@Override
+	public long getUnsafeKills() {
+		return unsafeKills.get();
+	}
+	
+	@Override
+	public long getTasksExpired() {
+		return tasksExpired.get();
+	}
+
+	@Override
+	public LatencyStatistics getQueueWaitTime() {
+		return queueWaitTime.snapshot();
+	}
+
+	@Override
+	public LatencyStatistics getExecutionTime() {
+		return executionTime.snapshot();
+	}
+
+	@Override
+	public void resize(int poolSize) {
+		pool.resize(poolSize);
+	}
+
+	@Override
+	public void restart() {
+		pool.restart();
+	}
+
+	@Override
+	public void resetStatistics() {
+		tasksSubmitted.set(0);
+		tasksCompleted.set(0);
+		tasksFailed.set(0);
+		tasksRetried.set(0);
+		jvmRestarts.set(0);
+		jvmRecycles.set(0);
+		unsafeKills.set(0);
+		tasksExpired.set(0);
+		scaleUps.set(0);
+		scaleDowns.set(0);
+		queueWaitTime.reset();
+		executionTime.reset();
+	}
+	
+}
@@ -0,0 +1,142 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jmx;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram with fixed buckets to record latencies.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public class LatencyHistogram {
+
+	/**
+	 * The upper bounds (inclusive, in milliseconds) of all but the last bucket. The 
+	 * last bucket holds everything above the last bound.
+	 */
+	public static final long[] BUCKET_BOUNDS = new long[]{
+		1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000
+	};
+	
+	private static final long[] BUCKET_BOUNDS_NANOS = new long[BUCKET_BOUNDS.length];
+	static {
+		for(int i = 0; i < BUCKET_BOUNDS.length; i++)
+			BUCKET_BOUNDS_NANOS[i] = TimeUnit.MILLISECONDS.toNanos(BUCKET_BOUNDS[i]);
+	}
+	
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+	
+	/**
+	 * Records a single value.
+	 * 
+	 * @param nanos the latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		if(nanos < 0)
+			nanos = 0;
+		
+		buckets.incrementAndGet(bucketOf(nanos));
+		count.incrementAndGet();
+		sum.addAndGet(nanos);
+		
+		long current = max.get();
+		while(nanos > current && ! max.compareAndSet(current, nanos))
+			current = max.get();
+	}
+	
+	private int bucketOf(long nanos) {
+		for(int i = 0; i < BUCKET_BOUNDS_NANOS.length; i++)
+			if(nanos <= BUCKET_BOUNDS_NANOS[i])
+				return i;
+		return BUCKET_BOUNDS_NANOS.length;
+	}
+	
+	public long getCount() {
+		return count.get();
+	}
+	
+	/**
+	 * Resets all recorded values.
+	 */
+	public void reset() {
+		for(int i = 0; i < buckets.length(); i++)
+			buckets.set(i, 0);
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+	
+	/**
+	 * Returns a snapshot of the currently recorded values.
+	 * 
+	 * @return
+	 */
+	public LatencyStatistics snapshot() {
+		long[] counts = new long[buckets.length()];
+		long total = 0;
+		for(int i = 0; i < counts.length; i++){
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		
+		long maxNanos = max.get();
+		double mean = 0 == total ? 0 : toMillis(sum.get()) / total;
+		
+		return new LatencyStatistics(
+				total,
+				mean,
+				toMillis(maxNanos),
+				percentile(counts, total, 0.5, maxNanos),
+				percentile(counts, total, 0.95, maxNanos),
+				percentile(counts, total, 0.99, maxNanos),
+				BUCKET_BOUNDS.clone(),
+				counts);
+	}
+	
+	private double percentile(long[] counts, long total, double percentile, long maxNanos) {
+		if(0 == total)
+			return 0;
+		
+		long threshold = (long) Math.ceil(total * percentile);
+		long cumulative = 0;
+		for(int i = 0; i < counts.length; i++){
+			cumulative += counts[i];
+			if(cumulative >= threshold)
+				return i < BUCKET_BOUNDS.length ? Math.min(BUCKET_BOUNDS[i], toMillis(maxNanos)) : toMillis(maxNanos);
+		}
+		
+		return toMillis(maxNanos);
+	}
+	
+	private double toMillis(long nanos) {
+		return nanos / 1000000d;
+	}
+}
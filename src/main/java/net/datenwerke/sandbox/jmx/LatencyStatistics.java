@@ -0,0 +1,97 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jmx;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of a {@link LatencyHistogram}. All times are given in milliseconds.
+ * 
+ * Percentiles are estimated by the upper bound of the bucket they fall into.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public class LatencyStatistics {
+
+	private final long count;
+	private final double mean;
+	private final double max;
+	private final double percentile50;
+	private final double percentile95;
+	private final double percentile99;
+	private final long[] bucketBounds;
+	private final long[] bucketCounts;
+	
+	@ConstructorProperties({"count", "mean", "max", "percentile50", "percentile95", "percentile99", "bucketBounds", "bucketCounts"})
+	public LatencyStatistics(long count, double mean, double max,
+			double percentile50, double percentile95, double percentile99,
+			long[] bucketBounds, long[] bucketCounts) {
+		this.count = count;
+		this.mean = mean;
+		this.max = max;
+		this.percentile50 = percentile50;
+		this.percentile95 = percentile95;
+		this.percentile99 = percentile99;
+		this.bucketBounds = bucketBounds;
+		this.bucketCounts = bucketCounts;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public double getPercentile50() {
+		return percentile50;
+	}
+
+	public double getPercentile95() {
+		return percentile95;
+	}
+
+	public double getPercentile99() {
+		return percentile99;
+	}
+
+	/**
+	 * The upper bounds of the buckets. The last bucket has no upper bound.
+	 * @return
+	 */
+	public long[] getBucketBounds() {
+		return bucketBounds;
+	}
+
+	public long[] getBucketCounts() {
+		return bucketCounts;
+	}
+	
+}
@@ -0,0 +1,116 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jmx;
+
+import java.util.Map;
+
+import net.datenwerke.sandbox.SandboxService;
+
+/**
+ * Management interface of the {@link SandboxService}.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public interface SandboxServiceMXBean {
+
+	public static final String OBJECT_NAME_PREFIX = "net.datenwerke.sandbox:type=SandboxService,name=";
+	
+	/**
+	 * The number of sandboxed calls that have been started.
+	 * @return
+	 */
+	long getCalls();
+	
+	/**
+	 * The number of sandboxed calls that failed.
+	 * @return
+	 */
+	long getFailedCalls();
+	
+	/**
+	 * The number of sandboxed calls currently running.
+	 * @return
+	 */
+	long getActiveCalls();
+	
+	/**
+	 * The latency of sandboxed calls as seen by the caller.
+	 * @return
+	 */
+	LatencyStatistics getCallLatency();
+	
+	/**
+	 * The number of threads currently watched by the monitor daemon.
+	 * @return
+	 */
+	int getMonitoredThreads();
+	
+	/**
+	 * The duration of a single pass of the monitor daemon over all monitored threads.
+	 * @return
+	 */
+	LatencyStatistics getMonitorLoopDuration();
+	
+	boolean isMonitorDaemonActive();
+	
+	boolean isMonitorWatchdogActive();
+	
+	/**
+	 * The number of killed sandboxed threads.
+	 * @return
+	 */
+	long getKills();
+	
+	/**
+	 * The number of killed sandboxed threads that held locks when they were stopped.
+	 * @return
+	 */
+	long getUnsafeKills();
+	
+	/**
+	 * The number of killed sandboxed threads by reason.
+	 * @return
+	 */
+	Map<String, Long> getKillsByReason();
+	
+	boolean isRemoteService();
+	
+	boolean hasRemoteAgents();
+	
+	/**
+	 * Restarts the monitor daemon (if it is not running).
+	 */
+	void startMonitorDaemon();
+	
+	/**
+	 * Restarts the jvm pool.
+	 */
+	void restartJvmPool();
+	
+	/**
+	 * Resets all counters and histograms.
+	 */
+	void resetStatistics();
+}
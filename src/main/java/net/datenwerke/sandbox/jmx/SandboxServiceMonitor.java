@@ -0,0 +1,242 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jmx;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.datenwerke.sandbox.SandboxServiceImpl;
+
+/**
+ * Default implementation of the {@link SandboxServiceMXBean}. The {@link SandboxServiceImpl}
+ * reports calls, kills and monitor passes to this object.
+ * 
+ * Each monitor is registered under a name of its own (see {@link #getName()}), such that 
+ * several services can be monitored side by side.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public class SandboxServiceMonitor implements SandboxServiceMXBean {
+
+	private static final AtomicInteger instances = new AtomicInteger();
+	
+	private final Logger logger = Logger.getLogger(getClass().getName());
+	
+	private final SandboxServiceImpl service;
+	private final String name;
+	
+	private final AtomicLong calls = new AtomicLong();
+	private final AtomicLong failedCalls = new AtomicLong();
+	private final AtomicLong activeCalls = new AtomicLong();
+	private final LatencyHistogram callLatency = new LatencyHistogram();
+	
+	private final LatencyHistogram monitorLoopDuration = new LatencyHistogram();
+	
+	private final AtomicLong kills = new AtomicLong();
+	private final AtomicLong unsafeKills = new AtomicLong();
+	private final ConcurrentMap<String, AtomicLong> killsByReason = new ConcurrentHashMap<String, AtomicLong>();
+	
+	private ObjectName objectName;
+
+	public SandboxServiceMonitor(SandboxServiceImpl service) {
+		this.service = service;
+		this.name = "SandboxService-" + instances.incrementAndGet();
+	}
+	
+	/**
+	 * The value of the name key of the ObjectName this bean is registered under.
+	 * 
+	 * @return
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Registers this bean with the platform MBeanServer. 
+	 */
+	public synchronized void register() {
+		if(null != objectName)
+			return;
+		
+		try{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName beanName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+			server.registerMBean(this, beanName);
+			objectName = beanName;
+		} catch(Exception e){
+			logger.log(Level.WARNING, "Could not register SandboxService MBean", e);
+		}
+	}
+	
+	/**
+	 * Removes this bean from the platform MBeanServer.
+	 */
+	public synchronized void unregister() {
+		if(null == objectName)
+			return;
+		
+		try{
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch(Exception e){
+			logger.log(Level.WARNING, "Could not unregister SandboxService MBean", e);
+		} finally {
+			objectName = null;
+		}
+	}
+	
+	public void callStarted() {
+		calls.incrementAndGet();
+		activeCalls.incrementAndGet();
+	}
+	
+	public void callFinished(long nanos, boolean success) {
+		activeCalls.decrementAndGet();
+		callLatency.record(nanos);
+		if(! success)
+			failedCalls.incrementAndGet();
+	}
+	
+	public void monitorLoopFinished(long nanos) {
+		monitorLoopDuration.record(nanos);
+	}
+	
+	public void threadKilled(String reason, boolean safe) {
+		kills.incrementAndGet();
+		if(! safe)
+			unsafeKills.incrementAndGet();
+		
+		if(null == reason)
+			reason = "unknown";
+		AtomicLong counter = killsByReason.get(reason);
+		if(null == counter){
+			AtomicLong newCounter = new AtomicLong();
+			counter = killsByReason.putIfAbsent(reason, newCounter);
+			if(null == counter)
+				counter = newCounter;
+		}
+		counter.incrementAndGet();
+	}
+	
+	@Override
+	public long getCalls() {
+		return calls.get();
+	}
+
+	@Override
+	public long getFailedCalls() {
+		return failedCalls.get();
+	}
+	
+	@Override
+	public long getActiveCalls() {
+		return activeCalls.get();
+	}
+
+	@Override
+	public LatencyStatistics getCallLatency() {
+		return callLatency.snapshot();
+	}
+
+	@Override
+	public int getMonitoredThreads() {
+		return service.getMonitoredThreadCount();
+	}
+
+	@Override
+	public LatencyStatistics getMonitorLoopDuration() {
+		return monitorLoopDuration.snapshot();
+	}
+
+	@Override
+	public boolean isMonitorDaemonActive() {
+		return service.isMonitorDaemonActive();
+	}
+
+	@Override
+	public boolean isMonitorWatchdogActive() {
+		return service.isMonitorWatchdogActive();
+	}
+
+	@Override
+	public long getKills() {
+		return kills.get();
+	}
+
+	@Override
+	public long getUnsafeKills() {
+		return unsafeKills.get();
+	}
+
+	@Override
+	public Map<String, Long> getKillsByReason() {
+		Map<String, Long> result = new TreeMap<String, Long>();
+		for(Map.Entry<String, AtomicLong> e : killsByReason.entrySet())
+			result.put(e.getKey(), e.getValue().get());
+		return result;
+	}
+
+	@Override
+	public boolean isRemoteService() {
+		return service.isRemoteService();
+	}
+
+	@Override
+	public boolean hasRemoteAgents() {
+		return service.hasRemoteAgents();
+	}
+
+	@Override
+	public void startMonitorDaemon() {
+		service.startMonitorDaemon();
+	}
+
+	@Override
+	public void restartJvmPool() {
+		service.restartJvmPool();
+	}
+
+	@Override
+	public void resetStatistics() {
+		calls.set(0);
+		failedCalls.set(0);
+		callLatency.reset();
+		monitorLoopDuration.reset();
+		kills.set(0);
+		unsafeKills.set(0);
+		killsByReason.clear();
+	}
+
+}
@@ -0,0 +1,50 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm;
+
+import java.util.List;
+
+/**
+ * A {@link Jvm} that can run several {@link JvmTask}s in a single call. 
+ * 
+ * The {@link JvmPool} sends queued tasks in batches to jvms implementing this
+ * interface and one by one to plain {@link Jvm}s.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public interface BatchJvm extends Jvm {
+
+	/**
+	 * Runs several {@link JvmTask}s on the remote agent. If supported by the transport the tasks are 
+	 * sent in a single message and executed concurrently by the remote agent. The listener 
+	 * is informed about every task as soon as it completes. The method returns once
+	 * all tasks completed. 
+	 * 
+	 * @param tasks
+	 * @param listener
+	 */
+	public void executeBatch(List<JvmTask> tasks, JvmBatchListener listener);
+	
+}
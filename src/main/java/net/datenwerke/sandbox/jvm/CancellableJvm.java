@@ -0,0 +1,46 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm;
+
+/**
+ * A {@link Jvm} that can stop a task while the remote agent executes it.
+ * 
+ * The {@link JvmFuture}s handed out by the {@link JvmPool} interrupt running
+ * tasks only on jvms implementing this interface.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public interface CancellableJvm extends Jvm {
+
+	/**
+	 * Stops a task that is currently executed by the remote agent. Only {@link JvmSandboxTask}s
+	 * can be cancelled. The call executing the task fails once the task was stopped.
+	 * 
+	 * @param task
+	 * @return true if the task was running and is being stopped
+	 */
+	public boolean cancel(JvmTask task);
+	
+}
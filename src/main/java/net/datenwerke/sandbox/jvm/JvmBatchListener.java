@@ -0,0 +1,57 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm;
+
+import net.datenwerke.sandbox.SandboxedCallResult;
+
+/**
+ * Receives the results of a batch of tasks as they complete.
+ * 
+ * Implementations are called from the thread that receives the results
+ * and should return quickly. In particular they must not call back into 
+ * the {@link Jvm}.
+ * 
+ * @see BatchJvm#executeBatch(java.util.List, JvmBatchListener)
+ * @author Arno Mittelbach
+ *
+ */
+public interface JvmBatchListener {
+
+	/**
+	 * Called when the task at the given index completed successfully.
+	 * 
+	 * @param index
+	 * @param result
+	 */
+	public void completed(int index, SandboxedCallResult result);
+	
+	/**
+	 * Called when the task at the given index failed. The exception is one of 
+	 * the exceptions declared by {@link Jvm#execute(JvmTask)}.
+	 * 
+	 * @param index
+	 * @param exception
+	 */
+	public void failed(int index, Exception exception);
+}
@@ -30,6 +30,7 @@ import net.datenwerke.sandbox.SandboxService;
 import net.datenwerke.sandbox.SandboxedCallResult;
 import net.datenwerke.sandbox.SandboxedCallResultImpl;
 import net.datenwerke.sandbox.SandboxedEnvironment;
+import net.datenwerke.sandbox.jmx.JvmPoolMonitor;
 import net.datenwerke.sandbox.jvm.exceptions.JvmKilledUnsafeThreadException;
 import net.datenwerke.sandbox.jvm.exceptions.JvmServerDeadException;
 import net.datenwerke.sandbox.jvm.exceptions.RemoteTaskExecutionFailed;
@@ -42,12 +43,20 @@ import net.datenwerke.sandbox.jvm.exceptions.RemoteTaskExecutionFailed;
 public class JvmFreelancer {
 
 	private JvmPoolConfig jvmConfig;
-	private Jvm jvm;
+	private volatile Jvm jvm;
 	private boolean shutdown;
 	private boolean restartOnRelease;
+	private final JvmPoolMonitor monitor;
+	private final JvmSpareSet spares;
 
 	public JvmFreelancer(JvmPoolConfig jvmConfig) {
+		this(jvmConfig, null, null);
+	}
+	
+	JvmFreelancer(JvmPoolConfig jvmConfig, JvmPoolMonitor monitor, JvmSpareSet spares) {
 		this.jvmConfig = jvmConfig;
+		this.monitor = monitor;
+		this.spares = spares;
 
 		jvm = jvmConfig.getInstantiator().spawnJvm();
 	}
@@ -66,11 +75,33 @@ public class JvmFreelancer {
 	}
 	
 	public void restartJvm() {
+		replaceJvm();
+		
+		if(null != monitor)
+			monitor.jvmRestarted();
+	}
+	
+	/**
+	 * Replaces the jvm by a fresh one. Must only be called while the 
+	 * freelancer is not acquired.
+	 */
+	void recycle() {
+		replaceJvm();
+		
+		if(null != monitor)
+			monitor.jvmRecycled();
+	}
+	
+	private void replaceJvm() {
 		/* kill jvm */
 		jvm.destroy();
 		
-		/* create new jvm */
-		jvm = jvmConfig.getInstantiator().spawnJvm();
+		/* create new jvm or use spare */
+		jvm = null != spares ? spares.take() : jvmConfig.getInstantiator().spawnJvm();
+	}
+	
+	Jvm getJvm() {
+		return jvm;
 	}
 	
 	/**
@@ -23,56 +23,223 @@
 
 package net.datenwerke.sandbox.jvm;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import net.datenwerke.sandbox.SandboxedCallResult;
 
 /**
+ * The result of a task submitted to a {@link JvmPool}.
+ * 
+ * Cancelling the future removes the task from the pool's queue. If the task is already
+ * being executed and interrupting is allowed, the task is stopped on the remote agent (see
+ * {@link Jvm#cancel(JvmTask)}).
  * 
  * @author Arno Mittelbach
  *
  */
 public class JvmFuture implements Future<SandboxedCallResult> {
 
-	private boolean cancel = false;
-	private boolean done = false;
+	private static final Logger logger = Logger.getLogger(JvmFuture.class.getName());
+	
+	private volatile boolean cancel = false;
+	private volatile boolean done = false;
 	
 	private final JvmTask task;
+	private final long queuedAt;
+	
+	private final int priority;
+	private final long deadline;
+	private final String tenant;
 	
 	private SandboxedCallResult result = null;
 	private Exception exception = null;
 	
+	/* where the task currently is */
+	private JvmTaskQueue queue;
+	private Jvm jvm;
+	
+	private List<JvmFutureListener> listeners;
+	
 	public JvmFuture(JvmTask task) {
 		super();
 		this.task = task;
+		this.queuedAt = System.nanoTime();
+		
+		if(task instanceof PrioritizedJvmTask){
+			PrioritizedJvmTask prioritized = (PrioritizedJvmTask) task;
+			this.priority = prioritized.getPriority();
+			this.deadline = prioritized.getDeadline();
+			this.tenant = prioritized.getTenant();
+		} else {
+			this.priority = PrioritizedJvmTask.NORM_PRIORITY;
+			this.deadline = 0;
+			this.tenant = null;
+		}
 	}
 
 	JvmTask getTask() {
 		return task;
 	}
 	
-	synchronized void setResult(SandboxedCallResult result) {
+	/**
+	 * Returns the {@link System#nanoTime()} at which this future was created.
+	 * 
+	 * @return
+	 */
+	long getQueuedAt() {
+		return queuedAt;
+	}
+	
+	int getPriority() {
+		return priority;
+	}
+	
+	String getTenant() {
+		return tenant;
+	}
+	
+	/**
+	 * Returns true if the task was not dispatched before its deadline.
+	 * 
+	 * @return
+	 */
+	boolean isExpired() {
+		return 0 != deadline && System.currentTimeMillis() > deadline;
+	}
+	
+	/**
+	 * Marks the task as waiting in the given queue.
+	 * 
+	 * @param queue
+	 * @return false if the future is already done and must not be queued
+	 */
+	synchronized boolean queued(JvmTaskQueue queue) {
 		if(done)
-			throw new IllegalStateException("result already set");
-		done = true;
-		this.result = result;
-		notifyAll();
+			return false;
+		this.queue = queue;
+		this.jvm = null;
+		return true;
 	}
-
-	synchronized void setException(Exception e) {
+	
+	/**
+	 * Marks the task as being sent to the given jvm.
+	 * 
+	 * @param jvm
+	 * @return false if the future was cancelled and the task must not be executed
+	 */
+	synchronized boolean dispatched(Jvm jvm) {
 		if(done)
-			throw new IllegalStateException("result already set");
-		done = true;
-		this.exception = e;
-		notifyAll();
+			return false;
+		this.queue = null;
+		this.jvm = jvm;
+		return true;
+	}
+	
+	void setResult(SandboxedCallResult result) {
+		complete(result, null);
+	}
+
+	void setException(Exception e) {
+		complete(null, e);
+	}
+	
+	private void complete(SandboxedCallResult result, Exception e) {
+		List<JvmFutureListener> listeners;
+		synchronized (this) {
+			/* the outcome of a cancelled task is dropped */
+			if(cancel)
+				return;
+			if(done)
+				throw new IllegalStateException("result already set");
+			
+			done = true;
+			this.result = result;
+			this.exception = e;
+			this.queue = null;
+			this.jvm = null;
+			
+			listeners = this.listeners;
+			this.listeners = null;
+			
+			notifyAll();
+		}
+		
+		notifyListeners(listeners);
+	}
+	
+	/**
+	 * Registers a listener that is informed once the future is done. If the future
+	 * is already done, the listener is called immediately.
+	 * 
+	 * @param listener
+	 */
+	public void addListener(JvmFutureListener listener) {
+		synchronized (this) {
+			if(! done){
+				if(null == listeners)
+					listeners = new ArrayList<JvmFutureListener>();
+				listeners.add(listener);
+				return;
+			}
+		}
+		
+		notifyListener(listener);
+	}
+	
+	private void notifyListeners(List<JvmFutureListener> listeners) {
+		if(null != listeners)
+			for(JvmFutureListener listener : listeners)
+				notifyListener(listener);
+	}
+	
+	private void notifyListener(JvmFutureListener listener) {
+		try{
+			listener.done(this);
+		} catch(RuntimeException e){
+			logger.log(Level.WARNING, "future listener failed", e);
+		}
 	}
 	
 	@Override
 	public boolean cancel(boolean mayInterruptIfRunning) {
-		return false;
+		JvmTaskQueue queue;
+		Jvm jvm;
+		List<JvmFutureListener> listeners;
+		synchronized (this) {
+			if(done)
+				return false;
+			
+			cancel = true;
+			done = true;
+			
+			queue = this.queue;
+			jvm = this.jvm;
+			this.queue = null;
+			this.jvm = null;
+			
+			listeners = this.listeners;
+			this.listeners = null;
+			
+			notifyAll();
+		}
+		
+		/* free the capacity held by the task */
+		if(null != queue)
+			queue.remove(this);
+		else if(jvm instanceof CancellableJvm && mayInterruptIfRunning)
+			((CancellableJvm)jvm).cancel(task);
+		
+		notifyListeners(listeners);
+		
+		return true;
 	}
 
 	@Override
@@ -86,37 +253,34 @@ public class JvmFuture implements Future<SandboxedCallResult> {
 	}
 
 	@Override
-	public SandboxedCallResult get() throws InterruptedException, ExecutionException {
-		synchronized (this) {
-			if(isDone()){
-				if(null != exception)
-					throw new ExecutionException(exception);
-				return result;
-			}
-			
-			try{
-				wait();
-			} catch(InterruptedException ignore){
-			}
-		}
+	public synchronized SandboxedCallResult get() throws InterruptedException, ExecutionException {
+		while(! done)
+			wait();
 		
-		return get();
+		return report();
 	}
 
 	@Override
-	public SandboxedCallResult get(long timeout, TimeUnit unit)
+	public synchronized SandboxedCallResult get(long timeout, TimeUnit unit)
 			throws InterruptedException, ExecutionException, TimeoutException {
-		synchronized (this) {
-			if(isDone()){
-				if(null != exception)
-					throw new ExecutionException(exception);
-				return result;
-			}
-			
-			unit.timedWait(this, timeout);
+		long remaining = unit.toNanos(timeout);
+		long end = System.nanoTime() + remaining;
+		while(! done){
+			if(remaining <= 0)
+				throw new TimeoutException();
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			remaining = end - System.nanoTime();
 		}
 		
-		return get();
+		return report();
+	}
+	
+	private SandboxedCallResult report() throws ExecutionException {
+		if(cancel)
+			throw new CancellationException();
+		if(null != exception)
+			throw new ExecutionException(exception);
+		return result;
 	}
 
 }
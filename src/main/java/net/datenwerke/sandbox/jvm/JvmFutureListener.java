@@ -0,0 +1,42 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm;
+
+/**
+ * Is informed once a {@link JvmFuture} is done, that is, once its task completed,
+ * failed or was cancelled.
+ * 
+ * @see JvmFuture#addListener(JvmFutureListener)
+ * @author Arno Mittelbach
+ *
+ */
+public interface JvmFutureListener {
+
+	/**
+	 * Called once the future is done. Calling {@link JvmFuture#get()} does not block.
+	 * 
+	 * @param future
+	 */
+	public void done(JvmFuture future);
+}
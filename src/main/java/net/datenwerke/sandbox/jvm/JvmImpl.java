@@ -23,47 +23,102 @@
 
 package net.datenwerke.sandbox.jvm;
 
-import java.rmi.Naming;
+import java.io.IOException;
+import java.rmi.ConnectException;
 import java.rmi.RemoteException;
+import java.rmi.ServerError;
+import java.rmi.ServerException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.datenwerke.sandbox.SandboxContext;
 import net.datenwerke.sandbox.SandboxedCallResult;
 import net.datenwerke.sandbox.SandboxedEnvironment;
+import net.datenwerke.sandbox.jvm.exceptions.JvmContextNotCachedException;
+import net.datenwerke.sandbox.jvm.exceptions.JvmInitializedTwiceException;
 import net.datenwerke.sandbox.jvm.exceptions.JvmInstantiatonException;
 import net.datenwerke.sandbox.jvm.exceptions.JvmKilledUnsafeThreadException;
+import net.datenwerke.sandbox.jvm.exceptions.JvmNotInitializedException;
 import net.datenwerke.sandbox.jvm.exceptions.JvmServerDeadException;
 import net.datenwerke.sandbox.jvm.exceptions.RemoteTaskExecutionFailed;
+import net.datenwerke.sandbox.jvm.server.CancellableRemoteServer;
+import net.datenwerke.sandbox.jvm.server.MonitoredRemoteServer;
 import net.datenwerke.sandbox.jvm.server.SandboxRemoteServer;
+import net.datenwerke.sandbox.jvm.transport.JvmTransport;
+import net.datenwerke.sandbox.jvm.transport.RmiTransport;
+import net.datenwerke.sandbox.jvm.transport.SocketTransportClient;
 
 /**
  * The implementation of a remote agent handler.
  * 
+ * Calls are sent without probing the remote agent first. Instead, a background heartbeat 
+ * periodically probes the agent and the process is checked for having exited before
+ * every call. Calls that could not be delivered, or that lost their connection to an agent
+ * that turns out to be gone, are reported as {@link JvmServerDeadException}.
+ * 
  * @author Arno Mittelbach
  *
  */
-public class JvmImpl implements Jvm {
+public class JvmImpl implements BatchJvm, CancellableJvm, MonitoredJvm {
 
 	private static final int MAX_TRIES = 10;
 	
+	/**
+	 * The interval (in milliseconds) in which remote agents are probed in the background.
+	 */
+	public static final long HEARTBEAT_INTERVAL = 2000;
+	
+	private static final ScheduledExecutorService HEARTBEAT = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("JvmHeartbeat"));
+	private static final ExecutorService PROBES = Executors.newCachedThreadPool(daemonThreadFactory("JvmHeartbeatProbe"));
+	
 	private final String namePrefix;
 	private final Process process;
 	private final int port;
 	private final String host;
+	private final JvmTransport transport;
+	private final long startTime = System.currentTimeMillis();
+	private final AtomicLong executedTasks = new AtomicLong();
 
 	private SandboxRemoteServer server;
-	private boolean destroyed;
+	private volatile boolean destroyed;
+	
+	private ScheduledFuture<?> heartbeat;
+	private final AtomicBoolean probing = new AtomicBoolean();
+	
+	/* ids of contexts the remote agent has cached */
+	private final Set<String> cachedContexts = Collections.synchronizedSet(new HashSet<String>());
 
 
 	public JvmImpl(String namePrefix, int port, Process process){
+		this(namePrefix, port, process, new RmiTransport());
+	}
+	
+	public JvmImpl(String namePrefix, int port, Process process, JvmTransport transport){
 		this.namePrefix = namePrefix;
 		this.process = process;
 		this.port = port;
 		this.host = "localhost";
+		this.transport = transport;
 		
 		int tries = 0;
 		while(null == server){
 			try{
-				server = (SandboxRemoteServer)Naming.lookup("//" + host + ":" + port + "/" + SandboxRemoteServer.NAME + namePrefix);
+				server = transport.connect(host, port, SandboxRemoteServer.NAME + namePrefix);
 			} catch(Exception e){
 				if(tries > MAX_TRIES){
 					/* kill process */
@@ -79,6 +134,24 @@ public class JvmImpl implements Jvm {
 				}
 			}
 		}
+		
+		heartbeat = HEARTBEAT.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				heartbeat();
+			}
+		}, HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+	
+	private static ThreadFactory daemonThreadFactory(final String name) {
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, name);
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
 	}
 	
 	/*
@@ -117,6 +190,15 @@ public class JvmImpl implements Jvm {
 		return port;
 	}
 	
+	/**
+	 * Returns the transport used to access the remote agent.
+	 * 
+	 * @return
+	 */
+	public JvmTransport getTransport() {
+		return transport;
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see net.datenwerke.sandbox.jvm.Jvm#destroy()
@@ -127,7 +209,13 @@ public class JvmImpl implements Jvm {
 			return;
 		
 		destroyed = true;
-		process.destroy();
+		if(null != heartbeat)
+			heartbeat.cancel(false);
+		try{
+			transport.disconnect(server);
+		} finally {
+			process.destroy();
+		}
 	}
 	
 	/*
@@ -135,32 +223,216 @@ public class JvmImpl implements Jvm {
 	 * @see net.datenwerke.sandbox.jvm.Jvm#execute(net.datenwerke.sandbox.jvm.JvmTask)
 	 */
 	@Override
-	public synchronized SandboxedCallResult execute(JvmTask task) throws JvmServerDeadException, RemoteTaskExecutionFailed, JvmKilledUnsafeThreadException {
-		/* test server */
-		testStatus();
+	public SandboxedCallResult execute(JvmTask task) throws JvmServerDeadException, RemoteTaskExecutionFailed, JvmKilledUnsafeThreadException {
+		/* fail fast if the server is known to be dead */
+		checkStatus();
 		
+		/* only send the context if the remote agent does not know it yet */
+		JvmTask sent = stripContext(task);
+		
+		executedTasks.incrementAndGet();
 		try{
-			return server.execute(task);
+			SandboxedCallResult result = server.execute(sent);
+			contextDelivered(task);
+			return result;
 		} catch(JvmKilledUnsafeThreadException e) {
 			throw e;
 		} catch(RemoteException e){
 			Throwable cause = e.getCause();
 			if(cause instanceof JvmKilledUnsafeThreadException)
 				throw (JvmKilledUnsafeThreadException)cause;
+			if(isContextNotCached(e) && sent != task){
+				/* context was evicted: resend with context */
+				forgetContext(task);
+				return execute(task);
+			}
+			JvmServerDeadException dead = connectionLost(e);
+			if(null != dead)
+				throw dead;
+			checkProcess();
 			throw new RemoteTaskExecutionFailed(e);
 		}
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.BatchJvm#executeBatch(java.util.List, net.datenwerke.sandbox.jvm.JvmBatchListener)
+	 */
+	@Override
+	public void executeBatch(final List<JvmTask> tasks, final JvmBatchListener listener) {
+		/* fail fast if the server is known to be dead */
+		try{
+			checkStatus();
+		} catch(JvmServerDeadException e){
+			for(int i = 0; i < tasks.size(); i++)
+				listener.failed(i, e);
+			return;
+		}
+		
+		/* transport does not support batches */
+		if(! (server instanceof SocketTransportClient)){
+			for(int i = 0; i < tasks.size(); i++)
+				executeAndNotify(tasks.get(i), i, listener);
+			return;
+		}
+		
+		final List<JvmTask> sent = new ArrayList<JvmTask>();
+		for(JvmTask task : tasks)
+			sent.add(stripContext(task));
+		
+		executedTasks.addAndGet(tasks.size());
+		
+		final List<Integer> resend = Collections.synchronizedList(new ArrayList<Integer>());
+		((SocketTransportClient)server).executeBatch(sent, new JvmBatchListener() {
+			@Override
+			public void completed(int index, SandboxedCallResult result) {
+				contextDelivered(tasks.get(index));
+				listener.completed(index, result);
+			}
+			
+			@Override
+			public void failed(int index, Exception exception) {
+				if(isContextNotCached(exception) && sent.get(index) != tasks.get(index)){
+					forgetContext(tasks.get(index));
+					resend.add(index);
+				} else
+					listener.failed(index, translateException(exception));
+			}
+		});
+		
+		/* context was evicted: resend with context */
+		for(Integer index : resend)
+			executeAndNotify(tasks.get(index), index, listener);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.CancellableJvm#cancel(net.datenwerke.sandbox.jvm.JvmTask)
+	 */
+	@Override
+	public boolean cancel(JvmTask task) {
+		if(! (task instanceof JvmSandboxTask) || ! (server instanceof CancellableRemoteServer) || isDestroyed())
+			return false;
+		
+		try{
+			return ((CancellableRemoteServer)server).cancel(((JvmSandboxTask)task).getTaskId());
+		} catch(RemoteException e){
+			/* the task cannot be running on a server that is not reachable */
+			return false;
+		}
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.MonitoredJvm#getStatus()
+	 */
+	@Override
+	public JvmStatus getStatus() throws JvmServerDeadException, RemoteException {
+		/* fail fast if the server is known to be dead */
+		checkStatus();
+		
+		if(! (server instanceof MonitoredRemoteServer))
+			throw new UnsupportedOperationException("The remote agent does not report its status");
+		
+		try{
+			return ((MonitoredRemoteServer)server).getStatus();
+		} catch(RemoteException e){
+			JvmServerDeadException dead = connectionLost(e);
+			if(null != dead)
+				throw dead;
+			throw e;
+		}
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.MonitoredJvm#getExecutedTaskCount()
+	 */
+	@Override
+	public long getExecutedTaskCount() {
+		return executedTasks.get();
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.MonitoredJvm#getStartTime()
+	 */
+	@Override
+	public long getStartTime() {
+		return startTime;
+	}
+	
+	private void executeAndNotify(JvmTask task, int index, JvmBatchListener listener) {
+		try{
+			listener.completed(index, execute(task));
+		} catch(Exception e){
+			listener.failed(index, e);
+		}
+	}
+	
+	/**
+	 * Maps the exception reported for a remote call to the exceptions declared by {@link #execute(JvmTask)}.
+	 * 
+	 * @param e
+	 * @return
+	 */
+	protected Exception translateException(Exception e) {
+		if(e instanceof JvmKilledUnsafeThreadException)
+			return e;
+		if(e.getCause() instanceof JvmKilledUnsafeThreadException)
+			return (JvmKilledUnsafeThreadException) e.getCause();
+		if(e instanceof IOException){
+			JvmServerDeadException dead = connectionLost((IOException) e);
+			if(null != dead)
+				return dead;
+		}
+		if(e instanceof RemoteException){
+			checkProcess();
+			return new RemoteTaskExecutionFailed(e);
+		}
+		return e;
+	}
+	
+	protected JvmTask stripContext(JvmTask task) {
+		if(task instanceof JvmSandboxTask){
+			JvmSandboxTask sandboxTask = (JvmSandboxTask) task;
+			if(null != sandboxTask.getContextId() && cachedContexts.contains(sandboxTask.getContextId()))
+				return sandboxTask.withoutContext();
+		}
+		return task;
+	}
+	
+	protected void contextDelivered(JvmTask task) {
+		if(task instanceof JvmSandboxTask && null != ((JvmSandboxTask)task).getContextId())
+			cachedContexts.add(((JvmSandboxTask)task).getContextId());
+	}
+	
+	protected void forgetContext(JvmTask task) {
+		if(task instanceof JvmSandboxTask)
+			cachedContexts.remove(((JvmSandboxTask)task).getContextId());
+	}
+	
+	protected boolean isContextNotCached(Exception e) {
+		return e instanceof JvmContextNotCachedException || e.getCause() instanceof JvmContextNotCachedException;
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see net.datenwerke.sandbox.jvm.Jvm#reset()
 	 */
 	@Override
 	public void reset() throws JvmServerDeadException, RemoteException {
-		/* test server */
-		testStatus();
+		/* fail fast if the server is known to be dead */
+		checkStatus();
 		
-		server.reset();
+		try{
+			server.reset();
+		} catch(RemoteException e){
+			JvmServerDeadException dead = connectionLost(e);
+			if(null != dead)
+				throw dead;
+			throw e;
+		}
 	}
 	
 	/*
@@ -169,10 +441,17 @@ public class JvmImpl implements Jvm {
 	 */
 	@Override
 	public void init(SandboxContext context) throws JvmServerDeadException, RemoteException {
-		/* test server */
-		testStatus();
+		/* fail fast if the server is known to be dead */
+		checkStatus();
 		
-		server.init(context);
+		try{
+			server.init(context);
+		} catch(RemoteException e){
+			JvmServerDeadException dead = connectionLost(e);
+			if(null != dead)
+				throw dead;
+			throw e;
+		}
 	}
 	
 	/*
@@ -181,9 +460,10 @@ public class JvmImpl implements Jvm {
 	 */
 	@Override
 	public SandboxedCallResult runInContext(java.lang.Class<? extends SandboxedEnvironment> task, Object... args) throws JvmServerDeadException, RemoteTaskExecutionFailed, JvmKilledUnsafeThreadException {
-		/* test server */
-		testStatus();
+		/* fail fast if the server is known to be dead */
+		checkStatus();
 		
+		executedTasks.incrementAndGet();
 		try{
 			return server.runInContext(task, args);
 		} catch(JvmKilledUnsafeThreadException e) {
@@ -192,6 +472,10 @@ public class JvmImpl implements Jvm {
 			Throwable cause = e.getCause();
 			if(cause instanceof JvmKilledUnsafeThreadException)
 				throw (JvmKilledUnsafeThreadException)cause;
+			JvmServerDeadException dead = connectionLost(e);
+			if(null != dead)
+				throw dead;
+			checkProcess();
 			throw new RemoteTaskExecutionFailed(e);
 		}
 	}
@@ -203,9 +487,10 @@ public class JvmImpl implements Jvm {
 	@Override
 	public SandboxedCallResult runSandboxed(
 			Class<? extends SandboxedEnvironment> task, Object... args) throws JvmServerDeadException, RemoteTaskExecutionFailed, JvmKilledUnsafeThreadException {
-		/* test server */
-		testStatus();
+		/* fail fast if the server is known to be dead */
+		checkStatus();
 		
+		executedTasks.incrementAndGet();
 		try{
 			return server.runSandboxed(task, args);
 		} catch(JvmKilledUnsafeThreadException e) {
@@ -214,6 +499,10 @@ public class JvmImpl implements Jvm {
 			Throwable cause = e.getCause();
 			if(cause instanceof JvmKilledUnsafeThreadException)
 				throw (JvmKilledUnsafeThreadException)cause;
+			JvmServerDeadException dead = connectionLost(e);
+			if(null != dead)
+				throw dead;
+			checkProcess();
 			throw new RemoteTaskExecutionFailed(e);
 		}
 	}
@@ -227,17 +516,150 @@ public class JvmImpl implements Jvm {
 		return "//" + host + ":" + port + "/" + SandboxRemoteServer.NAME + namePrefix;
 	}
 	
+	/**
+	 * Probes the remote agent. This needs a round trip and is thus only
+	 * done by the heartbeat.
+	 * 
+	 * @throws JvmServerDeadException
+	 */
 	protected void testStatus() throws JvmServerDeadException {
 		try{
 			server.isAlive();
 		} catch(Exception e){
-			try{
-				destroy();
-			} catch(Exception ignore){
+			throw serverDead(e);
+		}
+	}
+	
+	/**
+	 * Throws a {@link JvmServerDeadException} if the jvm was destroyed or its process exited.
+	 * 
+	 * @throws JvmServerDeadException
+	 */
+	protected void checkStatus() throws JvmServerDeadException {
+		if(destroyed)
+			throw new JvmServerDeadException(new IllegalStateException("jvm " + namePrefix + " was destroyed"));
+		if(hasExited())
+			throw serverDead(new IllegalStateException("jvm " + namePrefix + " exited with " + process.exitValue()));
+	}
+	
+	/**
+	 * Destroys the jvm if its process exited.
+	 */
+	protected void checkProcess() {
+		if(hasExited())
+			destroyQuietly();
+	}
+	
+	protected boolean hasExited() {
+		/* exitValue throws as long as the process is running */
+		try{
+			process.exitValue();
+			return true;
+		} catch(IllegalThreadStateException e){
+			return false;
+		}
+	}
+	
+	/**
+	 * Returns a {@link JvmServerDeadException} if a call failed because the connection to the 
+	 * remote agent was lost and the agent is gone, that is, it was destroyed, its process exited or
+	 * it does not answer a probe. Returns null if the call failed for any other reason.
+	 * 
+	 * @param e
+	 * @return
+	 */
+	protected JvmServerDeadException connectionLost(IOException e) {
+		if(e instanceof ConnectException)
+			return serverDead(e);
+		if(! isTransportFailure(e))
+			return null;
+		if(destroyed || hasExited() || ! probe())
+			return serverDead(e);
+		return null;
+	}
+	
+	/**
+	 * Returns true unless the exception was reported by the remote agent itself. Transports
+	 * wrap everything raised by the agent into a {@link ServerException} or a {@link ServerError}, 
+	 * such that these never cause a probe.
+	 * 
+	 * @param e
+	 * @return
+	 */
+	protected boolean isTransportFailure(IOException e) {
+		return ! (e instanceof ServerException
+				|| e instanceof ServerError
+				|| e instanceof JvmKilledUnsafeThreadException
+				|| e instanceof JvmContextNotCachedException
+				|| e instanceof JvmNotInitializedException
+				|| e instanceof JvmInitializedTwiceException);
+	}
+	
+	/**
+	 * Probes the remote agent like the heartbeat does. An agent that does not answer within
+	 * {@link #HEARTBEAT_INTERVAL} is not considered gone.
+	 * 
+	 * @return false if the probe failed
+	 */
+	private boolean probe() {
+		Future<?> probe = PROBES.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return server.isAlive();
 			}
-			throw new JvmServerDeadException(e);
+		});
+		try{
+			probe.get(HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+			return true;
+		} catch(ExecutionException e){
+			return false;
+		} catch(TimeoutException e){
+			probe.cancel(true);
+			return true;
+		} catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			return true;
 		}
 	}
+	
+	protected JvmServerDeadException serverDead(Exception e) {
+		destroyQuietly();
+		return new JvmServerDeadException(e);
+	}
+	
+	private void destroyQuietly() {
+		try{
+			destroy();
+		} catch(Exception ignore){
+		}
+	}
+	
+	protected void heartbeat() {
+		if(destroyed)
+			return;
+		
+		if(hasExited()){
+			destroyQuietly();
+			return;
+		}
+		
+		/* do not pile up probes of an unresponsive agent */
+		if(! probing.compareAndSet(false, true))
+			return;
+		
+		PROBES.execute(new Runnable() {
+			@Override
+			public void run() {
+				try{
+					testStatus();
+				} catch(JvmServerDeadException ignore){
+					/* jvm is destroyed and will be replaced on its next use */
+				} finally {
+					probing.set(false);
+				}
+			}
+		});
+	}
 
 
 }
@@ -23,19 +23,35 @@
 
 package net.datenwerke.sandbox.jvm;
 
+import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.ProcessBuilder.Redirect;
 import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import net.datenwerke.sandbox.jvm.exceptions.JvmInstantiatonException;
 import net.datenwerke.sandbox.jvm.server.SandboxJvmServer;
+import net.datenwerke.sandbox.jvm.transport.JvmTransport;
+import net.datenwerke.sandbox.jvm.transport.SocketTransport;
 
 /**
  * Default implementation of {@link JvmInstantiator} to instantiate
  * java virtual machines to be used as remote agents for sandboxing.
  * 
+ * To reduce startup times the instantiator can share an application class-data 
+ * archive between its jvms (see {@link #enableClassDataSharing()}) and pass additional
+ * startup flags (see {@link #setStartupFlags(String...)}).
+ * 
  * @author Arno Mittelbach
  *
  */
@@ -49,6 +65,30 @@ public class JvmInstantiatorImpl implements JvmInstantiator {
 	
 	private int minPortNumber;
 	private int maxPortNumber;
+	
+	/**
+	 * Flags that favor startup time over peak performance. Suited for
+	 * short lived jvms with small heaps.
+	 */
+	public static final String[] FAST_STARTUP_FLAGS = new String[]{
+		"-XX:+UseSerialGC",
+		"-XX:TieredStopAtLevel=1",
+		"-XX:-UsePerfData"
+	};
+	
+	/**
+	 * The time (in milliseconds) to wait for a spawned jvm to signal that it accepts connections.
+	 */
+	public static final long READY_TIMEOUT = 60000;
+	
+	/* dynamic class-data archives are supported as of java 13 */
+	private static final int MIN_CDS_VERSION = 13;
+	
+	private JvmTransport transport = new SocketTransport();
+	private List<String> startupFlags = Collections.emptyList();
+	private File cdsArchive;
+	private boolean cdsArchiveDumped;
+	private int javaVersion = -1;
 
 	
 	public JvmInstantiatorImpl(){
@@ -72,39 +112,263 @@ public class JvmInstantiatorImpl implements JvmInstantiator {
 	 */
 	@Override
 	public Jvm spawnJvm() {
-		String separator = System.getProperty("file.separator");
-		String classpath = System.getProperty("java.class.path");
-		String path = System.getProperty("java.home")
-	                + separator + "bin" + separator + "java";
+		List<String> cdsArgs = getClassDataSharingArgs();
 		
 		String namePrefix = initNamePrefix();
 		int portNumber = initPortNumber(0);
 		
-		ProcessBuilder processBuilder = null;
-		if(null != jvmArgs){
-			processBuilder =
-		                new ProcessBuilder(path, "-cp", 
-		                classpath, jvmArgs, 
-		                SandboxJvmServer.class.getName(),
-		                namePrefix, String.valueOf(portNumber));
-		} else {
-			processBuilder =
-	                new ProcessBuilder(path, "-cp", 
-	                classpath, SandboxJvmServer.class.getName(),
-	                namePrefix, String.valueOf(portNumber));
-		}
+		ProcessBuilder processBuilder = new ProcessBuilder(getServerCommand(cdsArgs, namePrefix, portNumber));
 		
 		processBuilder.redirectError(Redirect.INHERIT);
-		processBuilder.redirectOutput(Redirect.INHERIT);
 		try {
 			Process process = processBuilder.start();
+			awaitReady(process, namePrefix);
 			
-			return new JvmImpl(namePrefix, portNumber, process);
+			return new JvmImpl(namePrefix, portNumber, process, transport);
 		} catch (IOException e) {
 			throw new JvmInstantiatonException(e);
 		}
 	}
 
+	protected String getJavaExecutable() {
+		String separator = System.getProperty("file.separator");
+		return System.getProperty("java.home") + separator + "bin" + separator + "java";
+	}
+	
+	protected List<String> getServerCommand(List<String> vmArgs, String namePrefix, int portNumber) {
+		List<String> command = new ArrayList<String>();
+		command.add(getJavaExecutable());
+		command.addAll(vmArgs);
+		command.addAll(startupFlags);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		if(null != jvmArgs)
+			command.add(jvmArgs);
+		command.add(SandboxJvmServer.class.getName());
+		command.add(namePrefix);
+		command.add(String.valueOf(portNumber));
+		command.add(transport.getClass().getName());
+		return command;
+	}
+
+	/**
+	 * Waits until the spawned jvm signals on stdout that it accepts connections (see 
+	 * {@link SandboxJvmServer#READY_SIGNAL}). Any further output is forwarded to
+	 * the stdout of the current jvm.
+	 * 
+	 * @param process
+	 * @param namePrefix
+	 */
+	protected void awaitReady(Process process, String namePrefix) {
+		OutputPump pump = new OutputPump(process.getInputStream());
+		pump.setName("JvmOutput" + namePrefix);
+		pump.setDaemon(true);
+		pump.start();
+		
+		try{
+			if(! pump.awaitReady(READY_TIMEOUT)){
+				process.destroy();
+				throw new JvmInstantiatonException(pump.isClosed() ? 
+						"jvm exited before it was ready" : "jvm was not ready within " + READY_TIMEOUT + "ms");
+			}
+		} catch(InterruptedException e){
+			process.destroy();
+			Thread.currentThread().interrupt();
+			throw new JvmInstantiatonException(e);
+		}
+	}
+	
+	/**
+	 * Sets the transport used to communicate with spawned jvms. Defaults
+	 * to {@link SocketTransport}; use {@link net.datenwerke.sandbox.jvm.transport.RmiTransport}
+	 * to fall back to RMI.
+	 * 
+	 * @param transport
+	 */
+	public void setTransport(JvmTransport transport) {
+		if(null == transport)
+			throw new IllegalArgumentException("transport must not be null");
+		this.transport = transport;
+	}
+	
+	public JvmTransport getTransport() {
+		return transport;
+	}
+	
+	/**
+	 * Sets additional flags passed to every spawned jvm before the 
+	 * classpath. 
+	 * 
+	 * @see #FAST_STARTUP_FLAGS
+	 * @param flags
+	 */
+	public void setStartupFlags(String... flags) {
+		this.startupFlags = null == flags ? Collections.<String>emptyList() : Arrays.asList(flags.clone());
+	}
+	
+	public List<String> getStartupFlags() {
+		return Collections.unmodifiableList(startupFlags);
+	}
+	
+	/**
+	 * Shares an application class-data archive between spawned jvms. The archive is 
+	 * stored in the temp directory and is specific to the current classpath.
+	 * 
+	 * @see #enableClassDataSharing(File)
+	 */
+	public void enableClassDataSharing() {
+		String key = System.getProperty("java.home") + File.pathSeparator + System.getProperty("java.class.path");
+		File archive = new File(System.getProperty("java.io.tmpdir"), "java-sandbox-" + Integer.toHexString(key.hashCode()) + ".jsa");
+		enableClassDataSharing(archive);
+	}
+	
+	/**
+	 * Shares an application class-data archive between spawned jvms. If the archive
+	 * does not exist, it is recorded by a separate jvm that is started before the first 
+	 * jvm is spawned and exits as soon as it is ready. Spawned jvms map the archive instead 
+	 * of loading and verifying the classes from the classpath.
+	 * 
+	 * Dynamic archives require java 13 or later; if the jvm to be spawned is older this 
+	 * setting is ignored. A stale or corrupt archive is ignored by the spawned jvm.
+	 * 
+	 * @param archive
+	 */
+	public synchronized void enableClassDataSharing(File archive) {
+		this.cdsArchive = archive;
+		this.cdsArchiveDumped = false;
+		
+		if(getJavaVersion() < MIN_CDS_VERSION)
+			logger.log(Level.INFO, "Class data sharing requires java " + MIN_CDS_VERSION + " or later and is ignored.");
+	}
+	
+	public File getClassDataSharingArchive() {
+		return cdsArchive;
+	}
+	
+	protected synchronized List<String> getClassDataSharingArgs() {
+		if(null == cdsArchive || getJavaVersion() < MIN_CDS_VERSION)
+			return Collections.emptyList();
+		
+		/* jvms spawned concurrently wait here until the archive is written */
+		if(! cdsArchive.isFile() && ! cdsArchiveDumped){
+			cdsArchiveDumped = true;
+			dumpClassDataSharingArchive();
+		}
+		
+		if(cdsArchive.isFile())
+			return Arrays.asList("-XX:SharedArchiveFile=" + cdsArchive.getAbsolutePath(), "-Xshare:auto");
+		
+		return Collections.emptyList();
+	}
+	
+	/**
+	 * Records the archive by starting a server jvm that exits as soon as it is ready.
+	 */
+	protected void dumpClassDataSharingArchive() {
+		List<String> vmArgs = Arrays.asList(
+				"-XX:ArchiveClassesAtExit=" + cdsArchive.getAbsolutePath(),
+				"-D" + SandboxJvmServer.EXIT_WHEN_READY_PROPERTY + "=true");
+		ProcessBuilder processBuilder = new ProcessBuilder(getServerCommand(vmArgs, "CdsDump", initPortNumber(0)));
+		processBuilder.redirectErrorStream(true);
+		processBuilder.redirectOutput(Redirect.INHERIT);
+		
+		Process process = null;
+		try {
+			process = processBuilder.start();
+			
+			long timeout = System.currentTimeMillis() + READY_TIMEOUT;
+			while(! hasExited(process)){
+				if(System.currentTimeMillis() > timeout){
+					process.destroy();
+					logger.log(Level.WARNING, "Recording the class data sharing archive timed out.");
+					return;
+				}
+				Thread.sleep(50);
+			}
+			
+			if(! cdsArchive.isFile())
+				logger.log(Level.WARNING, "Class data sharing archive could not be recorded (exit value " + process.exitValue() + ").");
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Could not start jvm to record the class data sharing archive", e);
+		} catch (InterruptedException e) {
+			process.destroy();
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private boolean hasExited(Process process) {
+		try{
+			process.exitValue();
+			return true;
+		} catch(IllegalThreadStateException e){
+			return false;
+		}
+	}
+	
+	/**
+	 * Returns the major version of the jvm to be spawned, for example 8 for 1.8 
+	 * and 11 for 11, or 0 if it cannot be determined. The version is queried 
+	 * once from the java executable.
+	 * 
+	 * @return
+	 */
+	protected synchronized int getJavaVersion() {
+		if(javaVersion < 0)
+			javaVersion = queryJavaVersion();
+		return javaVersion;
+	}
+	
+	private int queryJavaVersion() {
+		ProcessBuilder processBuilder = new ProcessBuilder(getJavaExecutable(), "-version");
+		processBuilder.redirectErrorStream(true);
+		try {
+			Process process = processBuilder.start();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+			int version = 0;
+			try{
+				String line;
+				while(null != (line = reader.readLine())){
+					if(0 == version)
+						version = parseJavaVersion(line);
+				}
+			} finally {
+				reader.close();
+			}
+			process.waitFor();
+			return version;
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Could not determine version of " + getJavaExecutable(), e);
+			return 0;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return 0;
+		}
+	}
+	
+	/**
+	 * Parses the major version from the first line of java -version, e.g.
+	 * <code>java version "1.8.0_392"</code> or <code>openjdk version "17.0.2" 2022-01-18</code>.
+	 * 
+	 * @param line
+	 * @return
+	 */
+	static int parseJavaVersion(String line) {
+		int start = line.indexOf('"');
+		int end = start < 0 ? -1 : line.indexOf('"', start + 1);
+		if(end < 0)
+			return 0;
+		
+		String version = line.substring(start + 1, end);
+		if(version.startsWith("1."))
+			version = version.substring(2);
+		
+		int length = 0;
+		while(length < version.length() && Character.isDigit(version.charAt(length)))
+			length++;
+		
+		return 0 == length ? 0 : Integer.parseInt(version.substring(0, length));
+	}
+
 	protected synchronized String initNamePrefix(){
 		int n = number;
 		number++;
@@ -144,7 +408,44 @@ public class JvmInstantiatorImpl implements JvmInstantiator {
 	    return true;
 	}
 	
-
-	
-	
+	/**
+	 * Reads the stdout of a spawned jvm. Signals readiness and forwards all other output.
+	 */
+	private static class OutputPump extends Thread {
+		private final BufferedReader reader;
+		private final CountDownLatch ready = new CountDownLatch(1);
+		private volatile boolean signalled = false;
+		private volatile boolean closed = false;
+		
+		public OutputPump(InputStream in) {
+			this.reader = new BufferedReader(new InputStreamReader(in));
+		}
+		
+		@Override
+		public void run() {
+			try{
+				String line;
+				while(null != (line = reader.readLine())){
+					if(! signalled && SandboxJvmServer.READY_SIGNAL.equals(line)){
+						signalled = true;
+						ready.countDown();
+					} else
+						System.out.println(line);
+				}
+			} catch(IOException ignore){
+			} finally {
+				closed = true;
+				ready.countDown();
+			}
+		}
+		
+		public boolean awaitReady(long timeout) throws InterruptedException {
+			ready.await(timeout, TimeUnit.MILLISECONDS);
+			return signalled;
+		}
+		
+		public boolean isClosed() {
+			return closed;
+		}
+	}
 }
@@ -23,18 +23,31 @@
 
 package net.datenwerke.sandbox.jvm;
 
+import java.util.concurrent.TimeUnit;
 
 /**
- * Simple implementation of the {@link JvmPoolConfig} Bean.
+ * Simple implementation of the {@link TunableJvmPoolConfig} Bean.
  * 
  * @author Arno Mittelbach
  *
  */
-public class JvmPoolConfigImpl implements JvmPoolConfig {
+public class JvmPoolConfigImpl implements TunableJvmPoolConfig {
 
 	private final int poolsize;
 	private final JvmInstantiator jvmInstantiator;
 	private int freelancers;
+	
+	private int minPoolsize;
+	private int maxPoolsize;
+	private long queueLatencyTarget = 500;
+	private long idleTimeout = 5 * 60 * 1000;
+	private int spareJvms = 0;
+	private int jvmConcurrency = 1;
+	private int batchSize = 1;
+	private long maxTasksPerJvm = 0;
+	private long maxJvmAge = 0;
+	private long maxHeapUsage = 0;
+	private long maxMetaspaceUsage = 0;
 
 	public JvmPoolConfigImpl(
 		int poolsize,
@@ -57,10 +70,38 @@ public class JvmPoolConfigImpl implements JvmPoolConfig {
 		JvmInstantiator instantiatior
 		){
 		this.poolsize = poolsize;
+		this.minPoolsize = poolsize;
+		this.maxPoolsize = poolsize;
 		this.freelancers = freelancers;
 		this.jvmInstantiator = instantiatior;
 	}
 	
+	/**
+	 * Configures an elastic pool which starts with poolsize jvms and
+	 * may grow up to maxPoolsize and shrink down to minPoolsize jvms.
+	 * 
+	 * @param minPoolsize
+	 * @param poolsize
+	 * @param maxPoolsize
+	 * @param freelancers
+	 * @param instantiatior
+	 */
+	public JvmPoolConfigImpl(
+		int minPoolsize,
+		int poolsize,
+		int maxPoolsize,
+		int freelancers,
+		JvmInstantiator instantiatior
+		){
+		this(poolsize, freelancers, instantiatior);
+		
+		if(minPoolsize < 1 || minPoolsize > poolsize || poolsize > maxPoolsize)
+			throw new IllegalArgumentException("expected 1 <= minPoolsize <= poolsize <= maxPoolsize");
+		
+		this.minPoolsize = minPoolsize;
+		this.maxPoolsize = maxPoolsize;
+	}
+	
 	@Override
 	public JvmInstantiator getInstantiator() {
 		return jvmInstantiator;
@@ -75,5 +116,159 @@ public class JvmPoolConfigImpl implements JvmPoolConfig {
 	public int getFreelancerSize() {
 		return freelancers;
 	}
+	
+	@Override
+	public int getMinPoolSize() {
+		return minPoolsize;
+	}
+	
+	@Override
+	public int getMaxPoolSize() {
+		return maxPoolsize;
+	}
+	
+	@Override
+	public long getQueueLatencyTarget() {
+		return queueLatencyTarget;
+	}
+	
+	/**
+	 * Sets the time a task may wait in the work queue before the pool
+	 * spawns an additional jvm.
+	 * 
+	 * @param queueLatencyTarget
+	 * @param unit
+	 */
+	public void setQueueLatencyTarget(long queueLatencyTarget, TimeUnit unit) {
+		this.queueLatencyTarget = unit.toMillis(queueLatencyTarget);
+	}
+	
+	@Override
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+	
+	/**
+	 * Sets the time after which idle jvms are retired.
+	 * 
+	 * @param idleTimeout
+	 * @param unit
+	 */
+	public void setIdleTimeout(long idleTimeout, TimeUnit unit) {
+		this.idleTimeout = unit.toMillis(idleTimeout);
+	}
+	
+	@Override
+	public int getSpareJvmCount() {
+		return spareJvms;
+	}
+	
+	/**
+	 * Sets the number of started jvms kept on standby.
+	 * 
+	 * @param spareJvms
+	 */
+	public void setSpareJvmCount(int spareJvms) {
+		if(spareJvms < 0)
+			throw new IllegalArgumentException("number of spare jvms must not be negative");
+		this.spareJvms = spareJvms;
+	}
+	
+	@Override
+	public int getJvmConcurrency() {
+		return jvmConcurrency;
+	}
+	
+	/**
+	 * Sets the number of calls a single jvm processes concurrently.
+	 * 
+	 * @param jvmConcurrency
+	 */
+	public void setJvmConcurrency(int jvmConcurrency) {
+		if(jvmConcurrency < 1)
+			throw new IllegalArgumentException("concurrency must be at least 1");
+		this.jvmConcurrency = jvmConcurrency;
+	}
+	
+	@Override
+	public int getBatchSize() {
+		return batchSize;
+	}
+	
+	/**
+	 * Sets the maximum number of queued tasks sent to a jvm in a single call.
+	 * 
+	 * @param batchSize
+	 */
+	public void setBatchSize(int batchSize) {
+		if(batchSize < 1)
+			throw new IllegalArgumentException("batch size must be at least 1");
+		this.batchSize = batchSize;
+	}
+	
+	@Override
+	public long getMaxTasksPerJvm() {
+		return maxTasksPerJvm;
+	}
+	
+	/**
+	 * Sets the number of tasks after which a jvm is recycled.
+	 * 
+	 * @param maxTasksPerJvm 0 for no limit
+	 */
+	public void setMaxTasksPerJvm(long maxTasksPerJvm) {
+		if(maxTasksPerJvm < 0)
+			throw new IllegalArgumentException("maximum number of tasks must not be negative");
+		this.maxTasksPerJvm = maxTasksPerJvm;
+	}
+	
+	@Override
+	public long getMaxJvmAge() {
+		return maxJvmAge;
+	}
+	
+	/**
+	 * Sets the age after which a jvm is recycled.
+	 * 
+	 * @param maxJvmAge 0 for no limit
+	 * @param unit
+	 */
+	public void setMaxJvmAge(long maxJvmAge, TimeUnit unit) {
+		if(maxJvmAge < 0)
+			throw new IllegalArgumentException("maximum age must not be negative");
+		this.maxJvmAge = unit.toMillis(maxJvmAge);
+	}
+	
+	@Override
+	public long getMaxHeapUsage() {
+		return maxHeapUsage;
+	}
+	
+	/**
+	 * Sets the heap usage at which a jvm is recycled.
+	 * 
+	 * @param maxHeapUsage in bytes, 0 for no limit
+	 */
+	public void setMaxHeapUsage(long maxHeapUsage) {
+		if(maxHeapUsage < 0)
+			throw new IllegalArgumentException("maximum heap usage must not be negative");
+		this.maxHeapUsage = maxHeapUsage;
+	}
+	
+	@Override
+	public long getMaxMetaspaceUsage() {
+		return maxMetaspaceUsage;
+	}
+	
+	/**
+	 * Sets the metaspace usage at which a jvm is recycled.
+	 * 
+	 * @param maxMetaspaceUsage in bytes, 0 for no limit
+	 */
+	public void setMaxMetaspaceUsage(long maxMetaspaceUsage) {
+		if(maxMetaspaceUsage < 0)
+			throw new IllegalArgumentException("maximum metaspace usage must not be negative");
+		this.maxMetaspaceUsage = maxMetaspaceUsage;
+	}
 
 }
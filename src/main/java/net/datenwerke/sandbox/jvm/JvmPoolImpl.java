@@ -23,20 +23,30 @@
 
 package net.datenwerke.sandbox.jvm;
 
-import java.util.concurrent.BlockingDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import net.datenwerke.sandbox.SandboxedCallResult;
 import net.datenwerke.sandbox.SandboxedCallResultImpl;
+import net.datenwerke.sandbox.jmx.JvmPoolMonitor;
 import net.datenwerke.sandbox.jvm.exceptions.JvmKilledUnsafeThreadException;
 import net.datenwerke.sandbox.jvm.exceptions.JvmPoolInstantiationException;
 import net.datenwerke.sandbox.jvm.exceptions.JvmServerDeadException;
+import net.datenwerke.sandbox.jvm.exceptions.JvmTaskExpiredException;
 
 /**
  * 
@@ -47,58 +57,172 @@ public class JvmPoolImpl implements JvmPool{
 
 	private final Logger logger = Logger.getLogger(getClass().getName());
 	
-	private final int poolsize;
+	private volatile int poolsize;
 	private final int freelancerSize;
-	private final BlockingDeque<JvmFuture> workQueue;
-	private final JvmWorker[] jvms;
+	private final JvmTaskQueue workQueue;
+	private final List<JvmWorker> jvms;
 	
 	private final JvmFreelancer[] freelancers;
 	private final BlockingQueue<JvmFreelancer> freelancerQueue;
 	
-	private final JvmPoolConfig jvmConfig;
+	private final TunableJvmPoolConfig jvmConfig;
 	private final String name;
+	private final JvmPoolMonitor monitor;
 	
 	private boolean shutdown = false;
+	private int workerNumber = 1;
+	
+	private JvmPoolScaler scaler;
+	private JvmRecycler recycler;
+	private volatile JvmSpareSet spares;
 
 	private static int poolNumber = 1;
 	
+	/**
+	 * The interval (in milliseconds) in which jvms are checked against the recycling policy.
+	 */
+	public static final long RECYCLE_CHECK_INTERVAL = 1000;
+	
 	public JvmPoolImpl(JvmPoolConfig jvmConfig){
 		this.poolsize = jvmConfig.getPoolSize();
 		this.freelancerSize = jvmConfig.getFreelancerSize();
-		this.jvmConfig = jvmConfig;
-		this.workQueue = new LinkedBlockingDeque<JvmFuture>();
+		this.jvmConfig = tunable(jvmConfig);
+		this.workQueue = new JvmTaskQueue();
 		this.freelancerQueue = new LinkedBlockingQueue<JvmFreelancer>();
 		this.name = initPoolName();
+		this.monitor = new JvmPoolMonitor(this);
 		
 		/* install pool and freelancers */
-		this.jvms = new JvmWorker[poolsize];
+		this.jvms = new CopyOnWriteArrayList<JvmWorker>();
 		this.freelancers = new JvmFreelancer[freelancerSize];
 		
 		init();
 		
 	}
 	
+	/**
+	 * Plain configurations are run with the defaults of {@link JvmPoolConfigImpl}.
+	 * 
+	 * @param jvmConfig
+	 * @return
+	 */
+	private static TunableJvmPoolConfig tunable(JvmPoolConfig jvmConfig) {
+		if(jvmConfig instanceof TunableJvmPoolConfig)
+			return (TunableJvmPoolConfig) jvmConfig;
+		return new JvmPoolConfigImpl(jvmConfig.getPoolSize(), jvmConfig.getFreelancerSize(), jvmConfig.getInstantiator());
+	}
+	
 	protected void init() {
 		try{
-			/* install pool */
+			/* install spares */
+			if(jvmConfig.getSpareJvmCount() > 0)
+				spares = new JvmSpareSet(jvmConfig.getInstantiator(), jvmConfig.getSpareJvmCount(), name);
+			
+			/* install pool and freelancers, spawning all jvms in parallel */
+			poolsize = jvmConfig.getPoolSize();
+			List<Callable<Void>> spawns = new ArrayList<Callable<Void>>();
 			for(int i = 0; i < poolsize; i++){
-				JvmWorker worker = new JvmWorker(jvmConfig);
-				worker.setName(name + "-" + (i+1));
-				worker.setDaemon(true);
-				worker.start();
-				jvms[i] = worker;
+				spawns.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						addWorker();
+						return null;
+					}
+				});
 			}
-			
-			/* install freelancers */
 			for(int i = 0; i < freelancerSize; i++){
-				JvmFreelancer freelancer = new JvmFreelancer(jvmConfig);
-				freelancers[i] = freelancer;
-				freelancerQueue.add(freelancer);
+				final int index = i;
+				spawns.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						JvmFreelancer freelancer = new JvmFreelancer(jvmConfig, monitor, spares);
+						freelancers[index] = freelancer;
+						freelancerQueue.add(freelancer);
+						return null;
+					}
+				});
 			}
+			spawnAll(spawns);
 		} catch(Exception e){
 			shutdown();
 			throw new JvmPoolInstantiationException(e);
-		}	
+		}
+		
+		/* install scaler */
+		if(isElastic()){
+			scaler = new JvmPoolScaler();
+			scaler.setName(name + "-scaler");
+			scaler.setDaemon(true);
+			scaler.start();
+		}
+		
+		/* install recycler */
+		JvmRecyclingPolicy policy = new JvmRecyclingPolicy(jvmConfig);
+		if(policy.isEnabled()){
+			recycler = new JvmRecycler(policy);
+			recycler.setName(name + "-recycler");
+			recycler.setDaemon(true);
+			recycler.start();
+		}
+		
+		monitor.register();
+	}
+	
+	private void spawnAll(List<Callable<Void>> spawns) throws Exception {
+		if(spawns.isEmpty())
+			return;
+		
+		ExecutorService spawner = Executors.newFixedThreadPool(spawns.size());
+		try{
+			/* wait for all spawns such that no jvm is left behind on failure */
+			Exception failure = null;
+			for(Future<Void> spawn : spawner.invokeAll(spawns)){
+				try{
+					spawn.get();
+				} catch(ExecutionException e){
+					if(null == failure)
+						failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				}
+			}
+			if(null != failure)
+				throw failure;
+		} finally {
+			spawner.shutdown();
+		}
+	}
+	
+	private void addWorker() {
+		/* spawn jvm outside of lock */
+		JvmWorker worker = new JvmWorker(jvmConfig);
+		
+		synchronized (this) {
+			if(shutdown){
+				worker.shutdown();
+				return;
+			}
+			
+			worker.start(name + "-" + (workerNumber++));
+			jvms.add(worker);
+			poolsize = jvms.size();
+		}
+	}
+	
+	private synchronized boolean retireWorker(JvmWorker worker) {
+		if(jvms.size() <= jvmConfig.getMinPoolSize() || ! jvms.remove(worker))
+			return false;
+		
+		worker.retire();
+		poolsize = jvms.size();
+		return true;
+	}
+	
+	/**
+	 * Returns true if the pool adapts its size to the current load.
+	 * 
+	 * @return
+	 */
+	public boolean isElastic() {
+		return jvmConfig.getMaxPoolSize() > jvmConfig.getMinPoolSize();
 	}
 
 	synchronized static String initPoolName(){
@@ -109,15 +233,24 @@ public class JvmPoolImpl implements JvmPool{
 	@Override
 	public synchronized void shutdown(){
 		shutdown = true;
-		for(int i = 0; i < poolsize; i++){
-			JvmWorker worker = jvms[i];
-			if(worker == null)
-				continue;
+		if(null != scaler){
+			scaler.shutdown();
+			scaler.interrupt();
+			scaler = null;
+		}
+		if(null != recycler){
+			recycler.shutdown();
+			recycler.interrupt();
+			recycler = null;
+		}
+		
+		for(JvmWorker worker : jvms){
 			try{
 				worker.shutdown();
 				worker.interrupt();
 			} catch(Exception ignore){}
 		}
+		jvms.clear();
 		
 		for(int i = 0; i < freelancerSize; i++){
 			JvmFreelancer freeLancer = freelancers[i];
@@ -130,6 +263,12 @@ public class JvmPoolImpl implements JvmPool{
 		
 		freelancerQueue.clear();
 		
+		if(null != spares){
+			spares.shutdown();
+			spares = null;
+		}
+		
+		monitor.unregister();
 	}
 	
 	@Override
@@ -144,10 +283,110 @@ public class JvmPoolImpl implements JvmPool{
 		init();
 	}
 	
+	/**
+	 * Changes the number of jvms that process tasks. New jvms are spawned
+	 * in the calling thread. Superfluous jvms finish their current task and 
+	 * are then destroyed.
+	 * 
+	 * For elastic pools the new size is subject to further scaling
+	 * within the bounds given by the {@link TunableJvmPoolConfig}.
+	 * 
+	 * @param poolsize
+	 */
+	public void resize(int poolsize) {
+		if(poolsize < 1)
+			throw new IllegalArgumentException("pool size must be at least 1");
+		if(isShutdown())
+			throw new IllegalStateException("pool is shut down");
+		
+		while(jvms.size() < poolsize && ! isShutdown())
+			addWorker();
+		
+		synchronized (this) {
+			if(jvms.size() > poolsize){
+				List<JvmWorker> retired = new ArrayList<JvmWorker>(jvms.subList(poolsize, jvms.size()));
+				jvms.removeAll(retired);
+				for(JvmWorker worker : retired)
+					worker.retire();
+			}
+			this.poolsize = jvms.size();
+		}
+	}
+	
 	public String getName() {
 		return name;
 	}
 	
+	/**
+	 * Returns the management bean of this pool.
+	 * 
+	 * @return
+	 */
+	public JvmPoolMonitor getMonitor() {
+		return monitor;
+	}
+	
+	public int getPoolSize() {
+		return poolsize;
+	}
+	
+	public int getMinPoolSize() {
+		return jvmConfig.getMinPoolSize();
+	}
+	
+	public int getMaxPoolSize() {
+		return jvmConfig.getMaxPoolSize();
+	}
+	
+	public int getBusyWorkerCount() {
+		int busy = 0;
+		for(JvmWorker worker : jvms)
+			if(worker.isBusy())
+				busy++;
+		return busy;
+	}
+	
+	public int getQueueSize() {
+		return workQueue.size();
+	}
+	
+	public long getAffinityHits() {
+		return workQueue.getAffinityHits();
+	}
+	
+	public long getStolenTasks() {
+		return workQueue.getStolenTasks();
+	}
+	
+	public int getFreelancerSize() {
+		return freelancerSize;
+	}
+	
+	public int getAvailableFreelancerCount() {
+		return freelancerQueue.size();
+	}
+	
+	public int getSpareJvmCount() {
+		return jvmConfig.getSpareJvmCount();
+	}
+	
+	public int getAvailableSpareCount() {
+		JvmSpareSet spares = this.spares;
+		return null == spares ? 0 : spares.getAvailable();
+	}
+	
+	/**
+	 * Returns a started jvm, preferably from the set of spares.
+	 * 
+	 * @return
+	 */
+	protected Jvm spawnJvm() {
+		JvmSpareSet spares = this.spares;
+		if(null != spares)
+			return spares.take();
+		return jvmConfig.getInstantiator().spawnJvm();
+	}
+	
 	@Override
 	public JvmFreelancer acquireFreelancer() throws InterruptedException{
 		return freelancerQueue.take();
@@ -165,95 +404,435 @@ public class JvmPoolImpl implements JvmPool{
 	}
 	
 	@Override
-	public Future<SandboxedCallResult> addTask(JvmTask task) {
+	public JvmFuture addTask(JvmTask task) {
 		JvmFuture future = new JvmFuture(task);
 		workQueue.addLast(future);
+		monitor.taskSubmitted();
         
         return future;
     }
 	
 	protected void addTaskFirst(JvmFuture task) {
     	workQueue.addFirst(task);
+    	monitor.taskRetried();
     }
 	
 	/**
+	 * Processes tasks on a single jvm. A worker runs one lane (thread) per 
+	 * concurrent call to its jvm (see {@link TunableJvmPoolConfig#getJvmConcurrency()}) and every lane
+	 * sends up to {@link TunableJvmPoolConfig#getBatchSize()} queued tasks per call.
 	 * 
 	 * @author Arno Mittelbach
 	 *
 	 */
-	private class JvmWorker extends Thread {
+	private class JvmWorker {
 
-		private final JvmPoolConfig jvmConfig;
-		private Jvm jvm; 
-		private boolean shutdown = false;
+		private final TunableJvmPoolConfig jvmConfig;
+		private final List<Lane> lanes = new ArrayList<Lane>();
+		private final AtomicInteger liveLanes = new AtomicInteger();
+		private final AtomicInteger busyLanes = new AtomicInteger();
+		
+		private volatile Jvm jvm; 
+		
+		/* recycled jvms that still execute calls */
+		private final List<Jvm> draining = new ArrayList<Jvm>();
+		private volatile boolean shutdown = false;
+		private volatile long lastActive = System.nanoTime();
 
-		public JvmWorker(JvmPoolConfig jvmConfig) {
+		public JvmWorker(TunableJvmPoolConfig jvmConfig) {
 			this.jvmConfig = jvmConfig;
 			
 			jvm = jvmConfig.getInstantiator().spawnJvm();
 		}
+		
+		public synchronized void start(String name) {
+			workQueue.register(this);
+			
+			int concurrency = jvmConfig.getJvmConcurrency();
+			liveLanes.set(concurrency);
+			for(int i = 0; i < concurrency; i++){
+				Lane lane = new Lane();
+				lane.setName(concurrency > 1 ? name + "-" + (i + 1) : name);
+				lane.setDaemon(true);
+				lanes.add(lane);
+				lane.start();
+			}
+		}
 
-		public void shutdown() {
+		public synchronized void shutdown() {
 			shutdown = true;
-			if(! isAlive())
-				jvm.destroy();
+			workQueue.unregister(this);
+			if(0 == liveLanes.get())
+				destroyJvms();
+		}
+		
+		public synchronized void interrupt() {
+			for(Lane lane : lanes)
+				lane.interrupt();
+		}
+		
+		public synchronized void retire() {
+			shutdown();
+			for(Lane lane : lanes)
+				if(! lane.busy)
+					lane.interrupt();
 		}
 		
 		public boolean isShutdown() {
 			return shutdown;
 		}
+		
+		public boolean isBusy() {
+			return busyLanes.get() > 0;
+		}
+		
+		public long getIdleTime() {
+			return isBusy() ? 0 : System.nanoTime() - lastActive;
+		}
 
-		public void restartJvm() {
+		/**
+		 * Restarts the jvm unless another lane already replaced the failed jvm.
+		 * 
+		 * @param failed
+		 */
+		public synchronized void restartJvm(Jvm failed) {
+			if(jvm != failed)
+				return;
+			
 			/* kill jvm */
 			jvm.destroy();
 			
-			/* create new jvm */
-			jvm = jvmConfig.getInstantiator().spawnJvm();
+			/* create new jvm or use spare */
+			jvm = spawnJvm();
+			
+			monitor.jvmRestarted();
+		}
+		
+		private synchronized void laneFinished() {
+			if(0 == liveLanes.decrementAndGet())
+				destroyJvms();
+		}
+		
+		private void destroyJvms() {
+			jvm.destroy();
+			for(Jvm old : draining)
+				old.destroy();
+			draining.clear();
+		}
+		
+		/**
+		 * Replaces the jvm by a fresh one. The old jvm is destroyed once the calls
+		 * it currently executes are finished (see {@link #destroyDrained()}).
+		 */
+		public void recycle() {
+			/* spawn jvm outside of lock */
+			Jvm fresh = spawnJvm();
+			
+			synchronized (this) {
+				if(shutdown){
+					fresh.destroy();
+					return;
+				}
+				
+				draining.add(jvm);
+				jvm = fresh;
+			}
+			
+			monitor.jvmRecycled();
+		}
+		
+		/**
+		 * Destroys recycled jvms that no lane uses anymore.
+		 */
+		public synchronized void destroyDrained() {
+			Iterator<Jvm> it = draining.iterator();
+			while(it.hasNext()){
+				Jvm old = it.next();
+				boolean inUse = false;
+				for(Lane lane : lanes)
+					if(lane.current == old)
+						inUse = true;
+				if(! inUse){
+					old.destroy();
+					it.remove();
+				}
+			}
+		}
+		
+		public Jvm getJvm() {
+			return jvm;
+		}
+		
+		private synchronized Jvm acquireJvm(Lane lane) {
+			lane.current = jvm;
+			return jvm;
+		}
+		
+		protected void process(Jvm jvm, List<JvmFuture> batch) {
+			long now = System.nanoTime();
+			Iterator<JvmFuture> it = batch.iterator();
+			while(it.hasNext()){
+				JvmFuture future = it.next();
+				
+				/* skip cancelled tasks */
+				if(! future.dispatched(jvm)){
+					it.remove();
+					continue;
+				}
+				
+				/* do not dispatch tasks that missed their deadline */
+				if(future.isExpired()){
+					it.remove();
+					future.setException(new JvmTaskExpiredException(TimeUnit.NANOSECONDS.toMillis(now - future.getQueuedAt())));
+					monitor.taskExpired();
+					continue;
+				}
+				
+				monitor.taskStarted(now - future.getQueuedAt());
+			}
+			
+			if(batch.isEmpty())
+				return;
+			if(jvm instanceof BatchJvm && batch.size() > 1)
+				processBatch((BatchJvm) jvm, batch);
+			else {
+				/* jvms without batch support run the tasks one by one */
+				for(JvmFuture future : batch)
+					processSingle(jvm, future);
+			}
+		}
+
+		protected void processSingle(Jvm jvm, JvmFuture future) {
+			long start = System.nanoTime();
+			try{
+				JvmTask task = future.getTask();
+				SandboxedCallResult result;
+				if(null == task)
+					result = new SandboxedCallResultImpl(null);
+				else 
+					result = jvm.execute(task);
+				if(null == result)
+					 result = new SandboxedCallResultImpl(null);
+				
+				future.setResult(result);
+				monitor.taskFinished(System.nanoTime() - start, true);
+			} catch(JvmServerDeadException e){
+				/* reinsert task */
+				addTaskFirst(future);
+				
+				/* restart jvm */
+				restartJvm(jvm);
+			} catch(JvmKilledUnsafeThreadException e){
+				logger.log(Level.WARNING, "kill jvm as unsafe thread was stopped.");
+				
+				future.setException(e);
+				monitor.unsafeKill();
+				monitor.taskFinished(System.nanoTime() - start, false);
+				
+				/* restart jvm */
+				restartJvm(jvm);
+			} catch(Exception e){
+				future.setException(e);
+				monitor.taskFinished(System.nanoTime() - start, false);
+			}
+		}
+		
+		protected void processBatch(BatchJvm jvm, List<JvmFuture> batch) {
+			final long start = System.nanoTime();
+			
+			final List<JvmFuture> futures = new ArrayList<JvmFuture>();
+			List<JvmTask> tasks = new ArrayList<JvmTask>();
+			for(JvmFuture future : batch){
+				if(null == future.getTask()){
+					future.setResult(new SandboxedCallResultImpl(null));
+					monitor.taskFinished(0, true);
+				} else {
+					futures.add(future);
+					tasks.add(future.getTask());
+				}
+			}
+			if(tasks.isEmpty())
+				return;
+			
+			final AtomicBoolean restart = new AtomicBoolean();
+			jvm.executeBatch(tasks, new JvmBatchListener() {
+				@Override
+				public void completed(int index, SandboxedCallResult result) {
+					futures.get(index).setResult(null == result ? new SandboxedCallResultImpl(null) : result);
+					monitor.taskFinished(System.nanoTime() - start, true);
+				}
+				
+				@Override
+				public void failed(int index, Exception exception) {
+					JvmFuture future = futures.get(index);
+					if(exception instanceof JvmServerDeadException){
+						/* reinsert task */
+						addTaskFirst(future);
+						restart.set(true);
+						return;
+					}
+					
+					if(exception instanceof JvmKilledUnsafeThreadException){
+						logger.log(Level.WARNING, "kill jvm as unsafe thread was stopped.");
+						monitor.unsafeKill();
+						restart.set(true);
+					}
+					
+					future.setException(exception);
+					monitor.taskFinished(System.nanoTime() - start, false);
+				}
+			});
+			
+			if(restart.get())
+				restartJvm(jvm);
+		}
+		
+		/**
+		 * A thread sending tasks to the worker's jvm.
+		 */
+		private class Lane extends Thread {
+			
+			private volatile boolean busy = false;
+			
+			/* the jvm the lane currently sends tasks to */
+			private volatile Jvm current;
+			
+			@Override
+			public void run() {
+				int batchSize = jvmConfig.getBatchSize();
+				
+				while(! shutdown){
+					try {
+						JvmFuture future = workQueue.take(JvmWorker.this);
+						
+						List<JvmFuture> batch = new ArrayList<JvmFuture>();
+						batch.add(future);
+						if(batchSize > 1)
+							workQueue.drainTo(JvmWorker.this, batch, batchSize - 1);
+						
+						busy = true;
+						busyLanes.incrementAndGet();
+						try{
+							process(acquireJvm(this), batch);
+						} finally {
+							current = null;
+							lastActive = System.nanoTime();
+							busyLanes.decrementAndGet();
+							busy = false;
+						}
+					} catch (RuntimeException e) {
+						logger.log(Level.SEVERE, "could not execute task", e);
+					} catch (InterruptedException ignore) {
+					}
+				}
+				
+				/* kill jvm */
+				laneFinished();
+			}
+		}
+	}
+
+	
+	/**
+	 * Adapts the size of an elastic pool. Spawns an additional jvm whenever 
+	 * the oldest queued task waited longer than the configured queue latency 
+	 * target and retires jvms that have been idle for longer than the idle timeout.
+	 * 
+	 * @author Arno Mittelbach
+	 *
+	 */
+	private class JvmPoolScaler extends Thread {
+		
+		private volatile boolean shutdown = false;
+		
+		public void shutdown() {
+			shutdown = true;
 		}
 		
 		@Override
 		public void run() {
+			long queueLatencyTarget = TimeUnit.MILLISECONDS.toNanos(jvmConfig.getQueueLatencyTarget());
+			long idleTimeout = TimeUnit.MILLISECONDS.toNanos(jvmConfig.getIdleTimeout());
+			long checkInterval = Math.max(10, Math.min(1000, jvmConfig.getQueueLatencyTarget() / 2));
+			
 			while(! shutdown){
+				try{
+					JvmFuture oldest = workQueue.peekOldest();
+					if(null != oldest && System.nanoTime() - oldest.getQueuedAt() > queueLatencyTarget){
+						if(jvms.size() < jvmConfig.getMaxPoolSize()){
+							addWorker();
+							monitor.scaledUp();
+						}
+					} else if(jvms.size() > jvmConfig.getMinPoolSize()){
+						for(JvmWorker worker : jvms){
+							if(worker.getIdleTime() > idleTimeout && retireWorker(worker)){
+								monitor.scaledDown();
+								break;
+							}
+						}
+					}
+				} catch(RuntimeException e){
+					logger.log(Level.WARNING, "could not scale " + name, e);
+				}
+				
 				try {
-					JvmFuture future = workQueue.take();
+					Thread.sleep(checkInterval);
+				} catch (InterruptedException ignore) {
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Replaces jvms that reached a limit of the {@link JvmRecyclingPolicy}. Workers
+	 * switch to a fresh jvm and the old jvm is destroyed once its running calls 
+	 * finished. Idle freelancers are recycled directly.
+	 * 
+	 * @author Arno Mittelbach
+	 *
+	 */
+	private class JvmRecycler extends Thread {
+		
+		private final JvmRecyclingPolicy policy;
+		private volatile boolean shutdown = false;
+		
+		public JvmRecycler(JvmRecyclingPolicy policy) {
+			this.policy = policy;
+		}
+		
+		public void shutdown() {
+			shutdown = true;
+		}
+		
+		@Override
+		public void run() {
+			while(! shutdown){
+				try{
+					for(JvmWorker worker : jvms){
+						if(! worker.isShutdown() && policy.isExhausted(worker.getJvm()))
+							worker.recycle();
+						worker.destroyDrained();
+					}
 					
-					if(null != future){
-						try{
-							JvmTask task = future.getTask();
-							SandboxedCallResult result;
-							if(null == task)
-								result = new SandboxedCallResultImpl(null);
-							else 
-								result = jvm.execute(task);
-							if(null == result)
-								 result = new SandboxedCallResultImpl(null);
-							
-							future.setResult(result);
-						} catch(JvmServerDeadException e){
-							/* reinsert task */
-							addTaskFirst(future);
-							
-							/* restart jvm */
-							restartJvm();
-						} catch(JvmKilledUnsafeThreadException e){
-							logger.log(Level.WARNING, "kill jvm as unsafe thread was stopped.");
-							
-							future.setException(e);
-							
-							/* restart jvm */
-							restartJvm();
-						} catch(Exception e){
-							future.setException(e);
+					for(JvmFreelancer freelancer : freelancers){
+						/* only recycle freelancers that are not acquired */
+						if(null != freelancer && policy.isExhausted(freelancer.getJvm()) && freelancerQueue.remove(freelancer)){
+							try{
+								freelancer.recycle();
+							} finally {
+								freelancerQueue.add(freelancer);
+							}
 						}
 					}
-				} catch (RuntimeException e) {
-					logger.log(Level.SEVERE, "could not execute task", e);
+				} catch(RuntimeException e){
+					logger.log(Level.WARNING, "could not recycle jvms of " + name, e);
+				}
+				
+				try {
+					Thread.sleep(RECYCLE_CHECK_INTERVAL);
 				} catch (InterruptedException ignore) {
 				}
 			}
-			
-			/* kill jvm */
-			jvm.destroy();
 		}
 	}
 
@@ -0,0 +1,90 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm;
+
+/**
+ * Decides whether a jvm should be replaced by a fresh one based on the 
+ * number of tasks it executed, its age and its memory usage as configured 
+ * by the {@link TunableJvmPoolConfig}.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+class JvmRecyclingPolicy {
+
+	private final long maxTasks;
+	private final long maxAge;
+	private final long maxHeapUsage;
+	private final long maxMetaspaceUsage;
+	
+	public JvmRecyclingPolicy(TunableJvmPoolConfig config) {
+		this.maxTasks = config.getMaxTasksPerJvm();
+		this.maxAge = config.getMaxJvmAge();
+		this.maxHeapUsage = config.getMaxHeapUsage();
+		this.maxMetaspaceUsage = config.getMaxMetaspaceUsage();
+	}
+	
+	/**
+	 * Returns true if any limit is configured.
+	 * 
+	 * @return
+	 */
+	public boolean isEnabled() {
+		return maxTasks > 0 || maxAge > 0 || maxHeapUsage > 0 || maxMetaspaceUsage > 0;
+	}
+	
+	/**
+	 * Returns true if the jvm reached one of the configured limits. Memory is 
+	 * only queried from the remote agent if a memory limit is configured. Jvms
+	 * that are not {@link MonitoredJvm}s are never recycled.
+	 * 
+	 * @param candidate
+	 * @return
+	 */
+	public boolean isExhausted(Jvm candidate) {
+		if(! (candidate instanceof MonitoredJvm) || candidate.isDestroyed())
+			return false;
+		
+		MonitoredJvm jvm = (MonitoredJvm) candidate;
+		
+		if(maxTasks > 0 && jvm.getExecutedTaskCount() >= maxTasks)
+			return true;
+		if(maxAge > 0 && System.currentTimeMillis() - jvm.getStartTime() >= maxAge)
+			return true;
+		
+		if(maxHeapUsage > 0 || maxMetaspaceUsage > 0){
+			try{
+				JvmStatus status = jvm.getStatus();
+				if(maxHeapUsage > 0 && status.getHeapUsed() >= maxHeapUsage)
+					return true;
+				if(maxMetaspaceUsage > 0 && status.getMetaspaceUsed() >= maxMetaspaceUsage)
+					return true;
+			} catch(Exception ignore){
+				/* dead jvms are restarted by their users */
+			}
+		}
+		
+		return false;
+	}
+}
@@ -23,46 +23,155 @@
 
 package net.datenwerke.sandbox.jvm;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import net.datenwerke.sandbox.SandboxContext;
+import net.datenwerke.sandbox.SandboxLoader;
 import net.datenwerke.sandbox.SandboxService;
 import net.datenwerke.sandbox.SandboxServiceImpl;
 import net.datenwerke.sandbox.SandboxedCallResult;
 import net.datenwerke.sandbox.SandboxedEnvironment;
+import net.datenwerke.sandbox.jvm.server.SandboxContextCache;
+import net.datenwerke.sandbox.jvm.server.SandboxRemoteServiceImpl;
 
 /**
  * An implementation of {@link JvmTask} to execute sandboxed code on a remote agent.
+ * 
+ * The task carries the content hash of its context. If the remote agent is known
+ * to have cached the context, the task is sent without the context (see {@link #withoutContext()}). 
+ * Priority, tenant and deadline of the task are taken from the context (see 
+ * {@link SandboxContext#setRemotePriority(int)}).
+ * 
  * @author Arno Mittelbach
  *
  */
-public class JvmSandboxTask implements JvmTask {
+public class JvmSandboxTask implements PrioritizedJvmTask {
 
 	/**
 	 * 
 	 */
 	private static final long serialVersionUID = 8995776366037937614L;
 	
+	private static final AtomicLong taskIds = new AtomicLong();
+	
+	private final long taskId;
 	private final Class<? extends SandboxedEnvironment> call;
 	private final SandboxContext context;
+	private final String contextId;
 	private final boolean runInContext;
 	private final Object[] args;
+	
+	/* scheduling information is only needed by the controlling jvm */
+	private final transient int priority;
+	private final transient long deadline;
+	private final transient String tenant;
 
 
 	public JvmSandboxTask(Class<? extends SandboxedEnvironment> call, SandboxContext context, boolean runInContext, Object... args){
+		this.taskId = taskIds.incrementAndGet();
 		this.call = call;
 		this.context = context;
+		this.contextId = null == context ? null : context.getContentHash();
 		this.runInContext = runInContext;
 		this.args = args;
+		
+		this.priority = null == context ? NORM_PRIORITY : context.getRemotePriority();
+		this.tenant = null == context ? null : context.getTenant();
+		this.deadline = null == context || context.getRemoteQueueTimeout() < 0 ? 0 : System.currentTimeMillis() + context.getRemoteQueueTimeout();
+	}
+	
+	private JvmSandboxTask(JvmSandboxTask task, SandboxContext context){
+		this.taskId = task.taskId;
+		this.call = task.call;
+		this.context = context;
+		this.contextId = task.contextId;
+		this.runInContext = task.runInContext;
+		this.args = task.args;
+		
+		this.priority = task.priority;
+		this.tenant = task.tenant;
+		this.deadline = task.deadline;
+	}
+	
+	@Override
+	public int getPriority() {
+		return priority;
+	}
+	
+	@Override
+	public long getDeadline() {
+		return deadline;
+	}
+	
+	@Override
+	public String getTenant() {
+		return tenant;
+	}
+	
+	/**
+	 * Returns the id under which the task can be cancelled on the remote agent.
+	 * 
+	 * @see Jvm#cancel(JvmTask)
+	 * @return
+	 */
+	public long getTaskId() {
+		return taskId;
+	}
+	
+	/**
+	 * Returns the content hash of the task's context.
+	 * 
+	 * @return
+	 */
+	public String getContextId() {
+		return contextId;
+	}
+	
+	/**
+	 * Returns true if the task carries its context.
+	 * 
+	 * @return
+	 */
+	public boolean hasContext() {
+		return null != context;
+	}
+	
+	/**
+	 * Returns a copy of this task that refers to its context only by id.
+	 * 
+	 * @return
+	 */
+	public JvmSandboxTask withoutContext() {
+		return new JvmSandboxTask(this, null);
 	}
 	
 	@Override
 	public SandboxedCallResult call() throws Exception {
 		SandboxService instance = SandboxServiceImpl.getInstance();
 		
+		SandboxContext context = this.context;
+		SandboxLoader loader = null;
+		if(null != contextId && instance instanceof SandboxRemoteServiceImpl){
+			SandboxContextCache cache = ((SandboxRemoteServiceImpl)instance).getContextCache();
+			if(null != context)
+				cache.put(contextId, context);
+			
+			context = cache.getContext(contextId);
+			loader = cache.takeLoader(contextId);
+		}
+		
 		SandboxedCallResult result = null;
-		if(runInContext)
-			result = instance.runInContext(call, context, args);
-		else
-			result = instance.runSandboxed(call, context, args);
+		if(null == loader){
+			if(runInContext)
+				result = instance.runInContext(call, context, args);
+			else
+				result = instance.runSandboxed(call, context, args);
+		} else {
+			if(runInContext)
+				result = instance.runInContext(call, context, loader, args);
+			else
+				result = instance.runSandboxed(call, context, loader, args);
+		}
 		
 		return result;
 	}
@@ -0,0 +1,174 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a small number of fully started jvms on standby. Dead or recycled jvms
+ * are replaced by a spare at once while the spare itself is replaced 
+ * asynchronously.
+ * 
+ * If no spare is available, a new jvm is spawned in the calling thread.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public class JvmSpareSet {
+
+	private final Logger logger = Logger.getLogger(getClass().getName());
+	
+	private final JvmInstantiator instantiator;
+	private final int size;
+	private final BlockingQueue<Jvm> spares;
+	private final ExecutorService spawner;
+	
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+	
+	private volatile boolean shutdown = false;
+	
+	public JvmSpareSet(JvmInstantiator instantiator, int size, final String name) {
+		this.instantiator = instantiator;
+		this.size = size;
+		this.spares = new LinkedBlockingQueue<Jvm>();
+		this.spawner = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, name + "-spares");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		
+		for(int i = 0; i < size; i++)
+			replenish();
+	}
+	
+	/**
+	 * Returns a started jvm. If a spare is available it is handed out and 
+	 * a replacement is spawned in the background. Otherwise a new jvm
+	 * is spawned in the calling thread.
+	 * 
+	 * @return
+	 */
+	public Jvm take() {
+		Jvm jvm;
+		while(null != (jvm = spares.poll())){
+			replenish();
+			
+			if(isUsable(jvm)){
+				hits.incrementAndGet();
+				return jvm;
+			}
+			
+			jvm.destroy();
+		}
+		
+		misses.incrementAndGet();
+		return instantiator.spawnJvm();
+	}
+	
+	protected boolean isUsable(Jvm jvm) {
+		if(jvm.isDestroyed())
+			return false;
+		
+		/* exitValue throws as long as the process is running */
+		try{
+			jvm.getProcess().exitValue();
+			return false;
+		} catch(IllegalThreadStateException e){
+			return true;
+		}
+	}
+	
+	private void replenish() {
+		if(shutdown)
+			return;
+		
+		spawner.execute(new Runnable() {
+			@Override
+			public void run() {
+				if(shutdown || spares.size() >= size)
+					return;
+				
+				try{
+					Jvm jvm = instantiator.spawnJvm();
+					spares.add(jvm);
+					if(shutdown && spares.remove(jvm))
+						jvm.destroy();
+				} catch(RuntimeException e){
+					logger.log(Level.WARNING, "could not spawn spare jvm", e);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Destroys all spares.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		spawner.shutdownNow();
+		
+		Jvm jvm;
+		while(null != (jvm = spares.poll()))
+			jvm.destroy();
+	}
+	
+	public int getSize() {
+		return size;
+	}
+	
+	/**
+	 * The number of spares that are ready to be used.
+	 * @return
+	 */
+	public int getAvailable() {
+		return spares.size();
+	}
+	
+	/**
+	 * The number of times a spare could be handed out.
+	 * @return
+	 */
+	public int getHits() {
+		return hits.get();
+	}
+	
+	/**
+	 * The number of times a jvm had to be spawned synchronously.
+	 * @return
+	 */
+	public int getMisses() {
+		return misses.get();
+	}
+}
@@ -0,0 +1,112 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm;
+
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+/**
+ * The memory usage reported by a remote agent.
+ * 
+ * @see MonitoredJvm#getStatus()
+ * @author Arno Mittelbach
+ *
+ */
+public class JvmStatus implements Serializable {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -1390427741530864182L;
+	
+	private final long heapUsed;
+	private final long heapMax;
+	private final long metaspaceUsed;
+	
+	public JvmStatus(long heapUsed, long heapMax, long metaspaceUsed) {
+		this.heapUsed = heapUsed;
+		this.heapMax = heapMax;
+		this.metaspaceUsed = metaspaceUsed;
+	}
+	
+	/**
+	 * Returns the status of the current jvm.
+	 * 
+	 * @return
+	 */
+	public static JvmStatus current() {
+		long heapUsed = 0;
+		long metaspaceUsed = 0;
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+			if(MemoryType.HEAP == pool.getType()){
+				/* the usage after the last collection does not count garbage */
+				MemoryUsage usage = pool.getCollectionUsage();
+				if(null == usage)
+					usage = pool.getUsage();
+				heapUsed += usage.getUsed();
+			} else if(pool.getName().contains("Metaspace") || pool.getName().contains("Perm Gen"))
+				metaspaceUsed += pool.getUsage().getUsed();
+		}
+		
+		long heapMax = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+		
+		return new JvmStatus(heapUsed, heapMax, metaspaceUsed);
+	}
+	
+	/**
+	 * The bytes used on the heap, not counting garbage where the garbage collector 
+	 * allows to tell.
+	 * 
+	 * @return
+	 */
+	public long getHeapUsed() {
+		return heapUsed;
+	}
+	
+	/**
+	 * The maximum heap size in bytes or -1 if undefined.
+	 * 
+	 * @return
+	 */
+	public long getHeapMax() {
+		return heapMax;
+	}
+	
+	/**
+	 * The bytes used for class metadata (metaspace or perm gen).
+	 * 
+	 * @return
+	 */
+	public long getMetaspaceUsed() {
+		return metaspaceUsed;
+	}
+	
+	@Override
+	public String toString() {
+		return "heap: " + heapUsed + "/" + heapMax + ", metaspace: " + metaspaceUsed;
+	}
+}
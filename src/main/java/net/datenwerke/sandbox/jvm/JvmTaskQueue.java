@@ -0,0 +1,547 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The work queue of a {@link JvmPoolImpl}. 
+ * 
+ * Tasks are scheduled with affinity to the context they run in (see {@link JvmSandboxTask#getContextId()}):
+ * a context is assigned to the first worker that takes one of its tasks and subsequent tasks of 
+ * that context are queued for this worker, whose jvm has already loaded the context's classes. Tasks 
+ * without a known context are queued in a shared queue. Workers whose own queue is empty take 
+ * tasks from the shared queue and, if that is empty as well, steal from the longest queue of another 
+ * worker. 
+ * 
+ * Each worker waits on its own condition. A task queued for a worker wakes that worker if it is
+ * idle, otherwise an idle worker is woken which may steal the task right away. Tasks of an idle worker
+ * are only stolen once they have been queued for longer than {@link #STEAL_GRACE_PERIOD}, giving the 
+ * worker the chance to take them itself.
+ * 
+ * Each of these queues orders tasks by their priority (see {@link PrioritizedJvmTask}). Tasks
+ * of equal priority are served round robin between tenants, such that a tenant submitting many 
+ * tasks does not starve other tenants, and in order of submission within a tenant.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+class JvmTaskQueue {
+	
+	private static final int MAX_AFFINITIES = 1024;
+	
+	/* nanoseconds a task queued for an idle worker is reserved for this worker */
+	static final long STEAL_GRACE_PERIOD = TimeUnit.MILLISECONDS.toNanos(20);
+
+	private final ReentrantLock lock = new ReentrantLock();
+	
+	private final FairQueue shared = new FairQueue();
+	private final Map<Object, WorkerQueue> workerQueues = new HashMap<Object, WorkerQueue>();
+	private final Deque<WorkerQueue> waiting = new ArrayDeque<WorkerQueue>();
+	private final Map<String, Object> affinities = new LinkedHashMap<String, Object>(16, 0.75f, true){
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+			return size() > MAX_AFFINITIES;
+		}
+	};
+	
+	private int size = 0;
+	
+	private final AtomicLong affinityHits = new AtomicLong();
+	private final AtomicLong stolen = new AtomicLong();
+	
+	/**
+	 * Registers a worker that takes tasks from this queue.
+	 * 
+	 * @param worker
+	 */
+	public void register(Object worker) {
+		lock.lock();
+		try{
+			if(! workerQueues.containsKey(worker))
+				workerQueues.put(worker, new WorkerQueue(lock.newCondition()));
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Removes a worker. Its queued tasks are moved to the shared queue and the 
+	 * contexts assigned to it are released.
+	 * 
+	 * @param worker
+	 */
+	public void unregister(Object worker) {
+		lock.lock();
+		try{
+			WorkerQueue queue = workerQueues.remove(worker);
+			if(null != queue){
+				waiting.remove(queue);
+				if(! queue.isEmpty()){
+					for(JvmFuture future : queue.removeAll())
+						shared.addLast(future);
+					while(! waiting.isEmpty())
+						wake(waiting.pollFirst());
+				}
+			}
+			
+			Iterator<Object> it = affinities.values().iterator();
+			while(it.hasNext())
+				if(it.next() == worker)
+					it.remove();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Queues a task at the end of the queue of the worker its context is assigned to.
+	 * 
+	 * @param future
+	 */
+	public void addLast(JvmFuture future) {
+		lock.lock();
+		try{
+			if(! future.queued(this))
+				return;
+			
+			WorkerQueue queue = null;
+			String contextId = getContextId(future);
+			if(null != contextId){
+				Object worker = affinities.get(contextId);
+				if(null != worker)
+					queue = workerQueues.get(worker);
+			}
+			
+			(null == queue ? shared : queue).addLast(future);
+			size++;
+			signal(queue);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Queues a task at the head of the shared queue. Used for tasks that need to be retried.
+	 * 
+	 * @param future
+	 */
+	public void addFirst(JvmFuture future) {
+		lock.lock();
+		try{
+			if(! future.queued(this))
+				return;
+			
+			shared.addFirst(future);
+			size++;
+			signal(null);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Removes a task that is still queued.
+	 * 
+	 * @param future
+	 * @return true if the task was removed
+	 */
+	public boolean remove(JvmFuture future) {
+		lock.lock();
+		try{
+			boolean removed = shared.remove(future);
+			for(Iterator<WorkerQueue> it = workerQueues.values().iterator(); ! removed && it.hasNext();)
+				removed = it.next().remove(future);
+			
+			if(removed)
+				size--;
+			return removed;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Wakes the owner of the given queue if it is idle, or else any idle worker.
+	 * 
+	 * @param owner the queue a task was added to or null for the shared queue
+	 */
+	private void signal(WorkerQueue owner) {
+		if(null != owner && owner.idle){
+			if(waiting.remove(owner))
+				wake(owner);
+		} else if(! waiting.isEmpty())
+			wake(waiting.pollFirst());
+	}
+	
+	private void wake(WorkerQueue queue) {
+		queue.waiting = false;
+		queue.available.signal();
+	}
+	
+	/**
+	 * Returns the next task for the given worker, waiting if necessary. The worker
+	 * is registered if necessary.
+	 * 
+	 * @param worker
+	 * @return
+	 * @throws InterruptedException
+	 */
+	public JvmFuture take(Object worker) throws InterruptedException {
+		lock.lockInterruptibly();
+		try{
+			register(worker);
+			WorkerQueue own = workerQueues.get(worker);
+			own.idle = true;
+			try{
+				JvmFuture future;
+				while(null == (future = next(worker))){
+					own.waiting = true;
+					waiting.addLast(own);
+					try{
+						long grace = getGraceRemaining(own);
+						if(grace > 0)
+							own.available.awaitNanos(grace);
+						else
+							own.available.await();
+					} finally {
+						if(own.waiting){
+							own.waiting = false;
+							waiting.remove(own);
+						}
+					}
+				}
+				return future;
+			} finally {
+				own.idle = false;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the nanoseconds until the first task reserved for another idle worker 
+	 * may be stolen, or 0 if there is no such task.
+	 * 
+	 * @param own
+	 * @return
+	 */
+	private long getGraceRemaining(WorkerQueue own) {
+		long remaining = 0;
+		long now = System.nanoTime();
+		for(WorkerQueue queue : workerQueues.values()){
+			if(queue == own || ! queue.idle || queue.isEmpty())
+				continue;
+			long left = queue.peekOldest().getQueuedAt() + STEAL_GRACE_PERIOD - now;
+			if(left > 0 && (0 == remaining || left < remaining))
+				remaining = left;
+		}
+		return remaining;
+	}
+	
+	/**
+	 * Returns true if the tasks of the given queue may be stolen, that is, if its worker is busy or 
+	 * did not take its oldest task within the grace period.
+	 * 
+	 * @param queue
+	 * @return
+	 */
+	private boolean isStealable(WorkerQueue queue) {
+		if(queue.isEmpty())
+			return false;
+		return ! queue.idle || System.nanoTime() - queue.peekOldest().getQueuedAt() >= STEAL_GRACE_PERIOD;
+	}
+	
+	/**
+	 * Moves up to max tasks for the given worker to the collection without waiting.
+	 * 
+	 * @param worker
+	 * @param tasks
+	 * @param max
+	 * @return the number of tasks added
+	 */
+	public int drainTo(Object worker, Collection<JvmFuture> tasks, int max) {
+		lock.lock();
+		try{
+			int n = 0;
+			JvmFuture future;
+			while(n < max && null != (future = next(worker))){
+				tasks.add(future);
+				n++;
+			}
+			return n;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	private JvmFuture next(Object worker) {
+		JvmFuture future = null;
+		
+		WorkerQueue own = workerQueues.get(worker);
+		/* own queue first, unless the shared queue holds more urgent tasks */
+		if(null != own && ! own.isEmpty() && (shared.isEmpty() || own.getTopPriority() >= shared.getTopPriority())){
+			future = own.pollFirst();
+			affinityHits.incrementAndGet();
+		} else if(! shared.isEmpty()){
+			future = shared.pollFirst();
+			
+			/* assign context */
+			String contextId = getContextId(future);
+			if(null != contextId && null != own && ! workerQueues.containsKey(affinities.get(contextId)))
+				affinities.put(contextId, worker);
+		} else {
+			/* steal from the longest queue whose worker is busy or did not respond */
+			WorkerQueue victim = null;
+			for(WorkerQueue queue : workerQueues.values())
+				if(queue != own && (null == victim || queue.size() > victim.size()) && isStealable(queue))
+					victim = queue;
+			if(null != victim){
+				future = victim.pollFirst();
+				stolen.incrementAndGet();
+			}
+		}
+		
+		if(null != future)
+			size--;
+		return future;
+	}
+	
+	private String getContextId(JvmFuture future) {
+		JvmTask task = future.getTask();
+		if(task instanceof JvmSandboxTask)
+			return ((JvmSandboxTask)task).getContextId();
+		return null;
+	}
+	
+	/**
+	 * Returns the task that has been queued the longest or null if the queue is empty.
+	 * 
+	 * @return
+	 */
+	public JvmFuture peekOldest() {
+		lock.lock();
+		try{
+			JvmFuture oldest = shared.peekOldest();
+			for(WorkerQueue queue : workerQueues.values()){
+				JvmFuture head = queue.peekOldest();
+				if(null != head && (null == oldest || head.getQueuedAt() - oldest.getQueuedAt() < 0))
+					oldest = head;
+			}
+			return oldest;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	public int size() {
+		lock.lock();
+		try{
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * The number of tasks taken by the worker their context was assigned to.
+	 * 
+	 * @return
+	 */
+	public long getAffinityHits() {
+		return affinityHits.get();
+	}
+	
+	/**
+	 * The number of tasks taken from the queue of another worker.
+	 * 
+	 * @return
+	 */
+	public long getStolenTasks() {
+		return stolen.get();
+	}
+	
+	/**
+	 * Orders tasks by priority, then round robin by tenant, then by submission.
+	 */
+	private static class FairQueue {
+		
+		/* highest priority first */
+		private final TreeMap<Integer, Level> levels = new TreeMap<Integer, Level>(Collections.reverseOrder());
+		private int size = 0;
+		
+		void addLast(JvmFuture future) {
+			getLevel(future).getTenantQueue(future.getTenant()).addLast(future);
+			size++;
+		}
+		
+		void addFirst(JvmFuture future) {
+			getLevel(future).getTenantQueue(future.getTenant()).addFirst(future);
+			size++;
+		}
+		
+		JvmFuture pollFirst() {
+			if(levels.isEmpty())
+				return null;
+			
+			Map.Entry<Integer, Level> entry = levels.firstEntry();
+			JvmFuture future = entry.getValue().poll();
+			if(entry.getValue().isEmpty())
+				levels.remove(entry.getKey());
+			
+			size--;
+			return future;
+		}
+		
+		boolean remove(JvmFuture future) {
+			Level level = levels.get(future.getPriority());
+			if(null == level || ! level.remove(future))
+				return false;
+			
+			if(level.isEmpty())
+				levels.remove(future.getPriority());
+			size--;
+			return true;
+		}
+		
+		int getTopPriority() {
+			return levels.isEmpty() ? Integer.MIN_VALUE : levels.firstKey();
+		}
+		
+		JvmFuture peekOldest() {
+			JvmFuture oldest = null;
+			for(Level level : levels.values()){
+				for(Deque<JvmFuture> queue : level.tenants.values()){
+					JvmFuture head = queue.peekFirst();
+					if(null != head && (null == oldest || head.getQueuedAt() - oldest.getQueuedAt() < 0))
+						oldest = head;
+				}
+			}
+			return oldest;
+		}
+		
+		List<JvmFuture> removeAll() {
+			List<JvmFuture> all = new ArrayList<JvmFuture>(size);
+			for(Level level : levels.values())
+				for(Deque<JvmFuture> queue : level.tenants.values())
+					all.addAll(queue);
+			levels.clear();
+			size = 0;
+			return all;
+		}
+		
+		boolean isEmpty() {
+			return 0 == size;
+		}
+		
+		int size() {
+			return size;
+		}
+		
+		private Level getLevel(JvmFuture future) {
+			Level level = levels.get(future.getPriority());
+			if(null == level){
+				level = new Level();
+				levels.put(future.getPriority(), level);
+			}
+			return level;
+		}
+	}
+	
+	/**
+	 * The queue of a single worker together with the condition the worker waits on.
+	 */
+	private static class WorkerQueue extends FairQueue {
+		private final Condition available;
+		
+		/* the worker is inside take() */
+		private boolean idle;
+		/* the worker awaits available and has not been woken yet */
+		private boolean waiting;
+		
+		WorkerQueue(Condition available) {
+			this.available = available;
+		}
+	}
+	
+	/**
+	 * The tasks of a single priority. Tenants are served in the order
+	 * of the map, a tenant that was served is moved to the end.
+	 */
+	private static class Level {
+		private final LinkedHashMap<String, Deque<JvmFuture>> tenants = new LinkedHashMap<String, Deque<JvmFuture>>();
+		
+		Deque<JvmFuture> getTenantQueue(String tenant) {
+			Deque<JvmFuture> queue = tenants.get(tenant);
+			if(null == queue){
+				queue = new ArrayDeque<JvmFuture>();
+				tenants.put(tenant, queue);
+			}
+			return queue;
+		}
+		
+		JvmFuture poll() {
+			Iterator<Map.Entry<String, Deque<JvmFuture>>> it = tenants.entrySet().iterator();
+			Map.Entry<String, Deque<JvmFuture>> next = it.next();
+			it.remove();
+			
+			JvmFuture future = next.getValue().pollFirst();
+			if(! next.getValue().isEmpty())
+				tenants.put(next.getKey(), next.getValue());
+			
+			return future;
+		}
+		
+		boolean remove(JvmFuture future) {
+			Deque<JvmFuture> queue = tenants.get(future.getTenant());
+			if(null == queue || ! queue.remove(future))
+				return false;
+			
+			if(queue.isEmpty())
+				tenants.remove(future.getTenant());
+			return true;
+		}
+		
+		boolean isEmpty() {
+			return tenants.isEmpty();
+		}
+	}
+}
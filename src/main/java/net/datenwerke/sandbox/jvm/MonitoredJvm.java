@@ -0,0 +1,65 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm;
+
+import java.rmi.RemoteException;
+
+import net.datenwerke.sandbox.jvm.exceptions.JvmServerDeadException;
+
+/**
+ * A {@link Jvm} that reports its age, its workload and the memory usage of
+ * its remote agent.
+ * 
+ * The {@link JvmPool} only recycles jvms implementing this interface (see
+ * {@link TunableJvmPoolConfig#getMaxTasksPerJvm()}).
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public interface MonitoredJvm extends Jvm {
+
+	/**
+	 * Queries the memory usage of the remote agent.
+	 * 
+	 * @return
+	 * @throws JvmServerDeadException
+	 * @throws RemoteException
+	 */
+	public JvmStatus getStatus() throws JvmServerDeadException, RemoteException;
+	
+	/**
+	 * Returns the number of tasks sent to the remote agent.
+	 * 
+	 * @return
+	 */
+	public long getExecutedTaskCount();
+	
+	/**
+	 * Returns the time (in milliseconds since the epoch) at which the jvm was started.
+	 * 
+	 * @return
+	 */
+	public long getStartTime();
+	
+}
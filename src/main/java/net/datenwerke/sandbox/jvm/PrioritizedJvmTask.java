@@ -0,0 +1,63 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm;
+
+/**
+ * A {@link JvmTask} that carries scheduling information for the {@link JvmPool}.
+ * 
+ * Tasks are dispatched by priority. Tasks of equal priority are dispatched round robin 
+ * between tenants and in order of submission within a tenant. Tasks whose deadline 
+ * passed before they were dispatched are dropped.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public interface PrioritizedJvmTask extends JvmTask {
+	
+	public static final int MIN_PRIORITY = 1;
+	public static final int NORM_PRIORITY = 5;
+	public static final int MAX_PRIORITY = 10;
+
+	/**
+	 * The priority of the task between {@link #MIN_PRIORITY} and {@link #MAX_PRIORITY}. 
+	 * 
+	 * @return
+	 */
+	public int getPriority();
+	
+	/**
+	 * The time (as in {@link System#currentTimeMillis()}) until which the task needs
+	 * to be dispatched or 0 if the task does not expire.
+	 * 
+	 * @return
+	 */
+	public long getDeadline();
+	
+	/**
+	 * The tenant the task is accounted to or null.
+	 * 
+	 * @return
+	 */
+	public String getTenant();
+}
@@ -0,0 +1,123 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm;
+
+/**
+ * A {@link JvmPoolConfig} that additionally configures scaling, spare jvms,
+ * dispatching and recycling of a {@link JvmPool}. 
+ * 
+ * Pools configured with a plain {@link JvmPoolConfig} use a fixed number of jvms 
+ * with a single call per jvm, no spares and no recycling.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public interface TunableJvmPoolConfig extends JvmPoolConfig {
+
+	/**
+	 * The minimum number of jvms in the pool. The pool does not retire idle
+	 * jvms below this number.
+	 * 
+	 * @return
+	 */
+	public int getMinPoolSize();
+	
+	/**
+	 * The maximum number of jvms in the pool. If this is larger than the 
+	 * minimum pool size, the pool spawns additional jvms when tasks wait 
+	 * longer than the queue latency target.
+	 * 
+	 * @return
+	 */
+	public int getMaxPoolSize();
+	
+	/**
+	 * The time (in milliseconds) a task may wait in the work queue before
+	 * the pool spawns an additional jvm.
+	 * 
+	 * @return
+	 */
+	public long getQueueLatencyTarget();
+	
+	/**
+	 * The time (in milliseconds) after which an idle jvm is retired if the
+	 * pool has more than the minimum number of jvms.
+	 * 
+	 * @return
+	 */
+	public long getIdleTimeout();
+	
+	/**
+	 * The number of started jvms kept on standby to replace dead or 
+	 * restarted jvms without waiting for a new jvm to come up.
+	 * 
+	 * @return
+	 */
+	public int getSpareJvmCount();
+	
+	/**
+	 * The number of calls a single jvm processes concurrently.
+	 * 
+	 * @return
+	 */
+	public int getJvmConcurrency();
+	
+	/**
+	 * The maximum number of queued tasks sent to a jvm in a single call. The 
+	 * tasks of a batch are executed concurrently by the jvm.
+	 * 
+	 * @return
+	 */
+	public int getBatchSize();
+	
+	/**
+	 * The number of tasks after which a jvm is replaced by a fresh one. 0 means no limit.
+	 * 
+	 * @return
+	 */
+	public long getMaxTasksPerJvm();
+	
+	/**
+	 * The time (in milliseconds) after which a jvm is replaced by a fresh one. 0 means no limit.
+	 * 
+	 * @return
+	 */
+	public long getMaxJvmAge();
+	
+	/**
+	 * The heap usage (in bytes) reported by a jvm at which it is replaced 
+	 * by a fresh one. 0 means no limit.
+	 * 
+	 * @return
+	 */
+	public long getMaxHeapUsage();
+	
+	/**
+	 * The metaspace usage (in bytes) reported by a jvm at which it is replaced 
+	 * by a fresh one. 0 means no limit.
+	 * 
+	 * @return
+	 */
+	public long getMaxMetaspaceUsage();
+}
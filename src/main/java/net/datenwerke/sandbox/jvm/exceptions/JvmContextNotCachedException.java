@@ -0,0 +1,52 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm.exceptions;
+
+import java.rmi.RemoteException;
+
+/**
+ * Thrown by a remote agent if a task refers to a context by its id which 
+ * the agent does not (or no longer) hold.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public class JvmContextNotCachedException extends RemoteException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -2954618092017623164L;
+
+	private final String contextId;
+	
+	public JvmContextNotCachedException(String contextId){
+		super("Context " + contextId + " is not cached by this jvm.");
+		this.contextId = contextId;
+	}
+	
+	public String getContextId() {
+		return contextId;
+	}
+}
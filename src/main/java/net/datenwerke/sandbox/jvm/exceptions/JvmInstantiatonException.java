@@ -38,5 +38,9 @@ public class JvmInstantiatonException extends RuntimeException {
 	public JvmInstantiatonException(Throwable e) {
 		super(e);
 	}
+	
+	public JvmInstantiatonException(String msg) {
+		super(msg);
+	}
 
 }
@@ -0,0 +1,189 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.datenwerke.sandbox.SandboxContext;
+import net.datenwerke.sandbox.SandboxLoader;
+import net.datenwerke.sandbox.SandboxService;
+import net.datenwerke.sandbox.jvm.exceptions.JvmContextNotCachedException;
+
+/**
+ * Caches the {@link SandboxContext}s sent to a remote agent by their content hash, so 
+ * that subsequent tasks only need to send the hash. 
+ * 
+ * For every cached context one unused, fully initialized {@link SandboxLoader} is kept
+ * ready. A loader is only ever used for a single call; once it is taken, its successor is 
+ * initialized in the background.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public class SandboxContextCache {
+	
+	public static final int DEFAULT_MAX_SIZE = 64;
+
+	private final Logger logger = Logger.getLogger(getClass().getName());
+	
+	private final SandboxService sandboxService;
+	private final Map<String, Entry> entries;
+	private final ExecutorService loaderFactory;
+	
+	public SandboxContextCache(SandboxService sandboxService){
+		this(sandboxService, DEFAULT_MAX_SIZE);
+	}
+	
+	public SandboxContextCache(SandboxService sandboxService, final int maxSize){
+		this.sandboxService = sandboxService;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > maxSize;
+			}
+		};
+		this.loaderFactory = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "SandboxContextCache");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	/**
+	 * Adds the context under the given id.
+	 * 
+	 * @param id
+	 * @param context
+	 */
+	public void put(String id, SandboxContext context) {
+		Entry entry;
+		synchronized (entries) {
+			if(entries.containsKey(id))
+				return;
+			entry = new Entry(context);
+			entries.put(id, entry);
+		}
+		
+		prepareLoader(entry);
+	}
+	
+	/**
+	 * Returns the context stored under the given id.
+	 * 
+	 * @param id
+	 * @return
+	 * @throws JvmContextNotCachedException if the context is not cached
+	 */
+	public SandboxContext getContext(String id) throws JvmContextNotCachedException {
+		return getEntry(id).context;
+	}
+	
+	/**
+	 * Returns an unused class loader for the context with the given id.
+	 * 
+	 * @param id
+	 * @return
+	 * @throws JvmContextNotCachedException if the context is not cached
+	 */
+	public SandboxLoader takeLoader(String id) throws JvmContextNotCachedException {
+		Entry entry = getEntry(id);
+		
+		SandboxLoader loader;
+		synchronized (entry) {
+			loader = entry.loader;
+			entry.loader = null;
+		}
+		
+		if(null == loader)
+			loader = sandboxService.initClassLoader(entry.context);
+		
+		prepareLoader(entry);
+		
+		return loader;
+	}
+	
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+	
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+	
+	private Entry getEntry(String id) throws JvmContextNotCachedException {
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(id);
+		}
+		if(null == entry)
+			throw new JvmContextNotCachedException(id);
+		return entry;
+	}
+	
+	private void prepareLoader(final Entry entry) {
+		loaderFactory.execute(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (entry) {
+					if(null != entry.loader)
+						return;
+				}
+				
+				try{
+					SandboxLoader loader = sandboxService.initClassLoader(entry.context);
+					synchronized (entry) {
+						if(null == entry.loader)
+							entry.loader = loader;
+					}
+				} catch(RuntimeException e){
+					logger.log(Level.WARNING, "could not prepare class loader", e);
+				}
+			}
+		});
+	}
+	
+	private static class Entry {
+		final SandboxContext context;
+		SandboxLoader loader;
+		
+		Entry(SandboxContext context) {
+			this.context = context;
+		}
+	}
+}
@@ -23,25 +23,29 @@
 
 package net.datenwerke.sandbox.jvm.server;
 
-import java.rmi.Naming;
 import java.rmi.RemoteException;
-import java.rmi.registry.LocateRegistry;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import net.datenwerke.sandbox.SandboxContext;
 import net.datenwerke.sandbox.SandboxLoader;
+import net.datenwerke.sandbox.SandboxService;
 import net.datenwerke.sandbox.SandboxServiceImpl;
 import net.datenwerke.sandbox.SandboxedCallResult;
 import net.datenwerke.sandbox.SandboxedEnvironment;
+import net.datenwerke.sandbox.jvm.JvmSandboxTask;
+import net.datenwerke.sandbox.jvm.JvmStatus;
 import net.datenwerke.sandbox.jvm.JvmTask;
 import net.datenwerke.sandbox.jvm.exceptions.JvmInitializedTwiceException;
 import net.datenwerke.sandbox.jvm.exceptions.JvmKilledUnsafeThreadException;
 import net.datenwerke.sandbox.jvm.exceptions.JvmKilledUnsafeThreadRuntimeException;
 import net.datenwerke.sandbox.jvm.exceptions.JvmNotInitializedException;
+import net.datenwerke.sandbox.jvm.transport.JvmTransport;
+import net.datenwerke.sandbox.jvm.transport.RmiTransport;
 
-public class SandboxJvmServer extends UnicastRemoteObject implements SandboxRemoteServer {
+public class SandboxJvmServer extends UnicastRemoteObject implements CancellableRemoteServer, MonitoredRemoteServer {
 
 	/**
 	 * 
@@ -55,6 +59,9 @@ public class SandboxJvmServer extends UnicastRemoteObject implements SandboxRemo
 	private SandboxContext context;
 
 	private SandboxLoader classloader;
+	
+	/* the threads executing tasks by task id */
+	private final ConcurrentHashMap<Long, RunningTask> running = new ConcurrentHashMap<Long, RunningTask>();
 
 	public SandboxJvmServer(String namePrefix)  throws RemoteException {
 		this.name = NAME + namePrefix;
@@ -74,15 +81,43 @@ public class SandboxJvmServer extends UnicastRemoteObject implements SandboxRemo
 	
 	@Override
 	public SandboxedCallResult execute(JvmTask task) throws RemoteException {
+		Long taskId = task instanceof JvmSandboxTask ? ((JvmSandboxTask)task).getTaskId() : null;
+		RunningTask runningTask = null;
+		if(null != taskId){
+			runningTask = new RunningTask(Thread.currentThread());
+			running.put(taskId, runningTask);
+		}
 		try {
 			return task.call();
 		} catch(JvmKilledUnsafeThreadRuntimeException e){
 			throw new JvmKilledUnsafeThreadException();
 		} catch (Exception e) {
 			throw new RemoteException(e.getMessage(), e);
+		} finally {
+			if(null != taskId){
+				running.remove(taskId);
+				runningTask.finished();
+				
+				/* do not leak a cancellation into the next task */
+				Thread.interrupted();
+			}
 		}
 	}
 	
+	@Override
+	public boolean cancel(long taskId) {
+		RunningTask runningTask = running.get(taskId);
+		if(null == runningTask)
+			return false;
+		
+		return runningTask.cancel();
+	}
+	
+	@Override
+	public JvmStatus getStatus() {
+		return JvmStatus.current();
+	}
+	
 	@Override
 	public void destroy() {
 		System.exit(0);
@@ -135,6 +170,17 @@ public class SandboxJvmServer extends UnicastRemoteObject implements SandboxRemo
 		 SandboxServiceImpl.getInstance().registerContext(name, context);
 	}
 
+	/**
+	 * Printed to stdout once the server accepts connections.
+	 */
+	public static final String READY_SIGNAL = "SandboxJvmServer ready";
+	
+	/**
+	 * If this system property is set to true the server exits as soon as it is ready. This 
+	 * is used to record the classes needed for startup.
+	 */
+	public static final String EXIT_WHEN_READY_PROPERTY = "net.datenwerke.sandbox.jvm.exitWhenReady";
+	
 	public static void main(String[] args) {
 		if(args.length < 2)
 			System.exit(-1);
@@ -143,19 +189,56 @@ public class SandboxJvmServer extends UnicastRemoteObject implements SandboxRemo
 		String host = "localhost";
 		int port = Integer.parseInt(args[1]);
 		try {
+			JvmTransport transport = args.length > 2 ? (JvmTransport) Class.forName(args[2]).newInstance() : new RmiTransport();
+			
 			SandboxJvmServer server = new SandboxJvmServer(namePrefix);
 			
+			/* only rmi needs the server to be exported as remote object */
+			if(! (transport instanceof RmiTransport))
+				UnicastRemoteObject.unexportObject(server, true);
+			
 			new SandboxRemoteServiceImpl();
 			
-			LocateRegistry.createRegistry(port);
-			Naming.rebind("//" + host + ":" + port + "/" + server.getName(), server);
+			transport.export(server, host, port);
+			
+			/* tell the spawning jvm that we are ready */
+			System.out.println(READY_SIGNAL);
+			System.out.flush();
+			
+			if(Boolean.getBoolean(EXIT_WHEN_READY_PROPERTY))
+				System.exit(0);
 		} catch (Exception e) {
 			e.printStackTrace();
 			System.exit(-1);
 		}
 	}
-
-	
-
 	
+	/**
+	 * The thread executing a task. Cancelling and finishing are mutually 
+	 * exclusive such that a cancellation cannot hit the thread's next task.
+	 */
+	private static class RunningTask {
+		private Thread thread;
+		
+		RunningTask(Thread thread) {
+			this.thread = thread;
+		}
+		
+		synchronized boolean cancel() {
+			if(null == thread)
+				return false;
+			
+			SandboxService service = SandboxServiceImpl.getInstance();
+			if(service instanceof SandboxRemoteServiceImpl)
+				((SandboxRemoteServiceImpl)service).cancel(thread);
+			else
+				thread.interrupt();
+			
+			return true;
+		}
+		
+		synchronized void finished() {
+			thread = null;
+		}
+	}
 }
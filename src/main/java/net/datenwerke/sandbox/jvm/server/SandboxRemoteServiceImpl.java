@@ -25,6 +25,7 @@ package net.datenwerke.sandbox.jvm.server;
 
 import net.datenwerke.sandbox.SandboxCleanupServiceImpl;
 import net.datenwerke.sandbox.SandboxServiceImpl;
+import net.datenwerke.sandbox.exception.SandboxedTaskKilledException;
 
 /**
  * 
@@ -33,10 +34,34 @@ import net.datenwerke.sandbox.SandboxServiceImpl;
  */
 public class SandboxRemoteServiceImpl extends SandboxServiceImpl {
 
+	private final SandboxContextCache contextCache;
+	
 	public SandboxRemoteServiceImpl() {
 		super(true, 
 			  new SandboxCleanupServiceImpl(), 
 			  null);
+		
+		contextCache = new SandboxContextCache(this);
+	}
+	
+	/**
+	 * Returns the cache of contexts sent to this agent.
+	 * 
+	 * @return
+	 */
+	public SandboxContextCache getContextCache() {
+		return contextCache;
+	}
+	
+	/**
+	 * Cancels the task executed by the given thread. Sandboxed threads started by
+	 * the thread are killed, otherwise the thread is interrupted.
+	 * 
+	 * @param thread
+	 */
+	public void cancel(Thread thread) {
+		if(! killThreadsOf(thread, new SandboxedTaskKilledException("task was cancelled")))
+			thread.interrupt();
 	}
 	
 	@Override
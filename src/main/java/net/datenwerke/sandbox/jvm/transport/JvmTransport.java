@@ -0,0 +1,70 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm.transport;
+
+import net.datenwerke.sandbox.jvm.server.SandboxJvmServer;
+import net.datenwerke.sandbox.jvm.server.SandboxRemoteServer;
+
+/**
+ * Describes how a remote agent ({@link SandboxJvmServer}) is made accessible and
+ * how it is accessed from the controlling jvm. 
+ * 
+ * Transports are instantiated in the remote agent by their class name and
+ * thus need to provide a public no-argument constructor.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public interface JvmTransport {
+
+	/**
+	 * Makes the server accessible on the given port. Called in the remote agent.
+	 * 
+	 * @param server
+	 * @param host
+	 * @param port
+	 * @throws Exception
+	 */
+	public void export(SandboxRemoteServer server, String host, int port) throws Exception;
+	
+	/**
+	 * Connects to the server with the given name. Called in the controlling jvm. Implementations 
+	 * should fail fast if the server is not (yet) available.
+	 * 
+	 * @param host
+	 * @param port
+	 * @param name
+	 * @return
+	 * @throws Exception
+	 */
+	public SandboxRemoteServer connect(String host, int port, String name) throws Exception;
+	
+	/**
+	 * Releases any resources held for the connection to a server.
+	 * 
+	 * @param server
+	 */
+	public void disconnect(SandboxRemoteServer server);
+	
+}
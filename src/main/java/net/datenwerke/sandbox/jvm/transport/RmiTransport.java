@@ -0,0 +1,70 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm.transport;
+
+import java.rmi.Naming;
+import java.rmi.registry.LocateRegistry;
+
+import net.datenwerke.sandbox.jvm.server.SandboxRemoteServer;
+
+/**
+ * Accesses remote agents via java RMI. 
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public class RmiTransport implements JvmTransport {
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.transport.JvmTransport#export(net.datenwerke.sandbox.jvm.server.SandboxRemoteServer, java.lang.String, int)
+	 */
+	@Override
+	public void export(SandboxRemoteServer server, String host, int port) throws Exception {
+		LocateRegistry.createRegistry(port);
+		Naming.rebind(getUrl(host, port, server.getName()), server);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.transport.JvmTransport#connect(java.lang.String, int, java.lang.String)
+	 */
+	@Override
+	public SandboxRemoteServer connect(String host, int port, String name) throws Exception {
+		return (SandboxRemoteServer) Naming.lookup(getUrl(host, port, name));
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.transport.JvmTransport#disconnect(net.datenwerke.sandbox.jvm.server.SandboxRemoteServer)
+	 */
+	@Override
+	public void disconnect(SandboxRemoteServer server) {
+	}
+	
+	protected String getUrl(String host, int port, String name) {
+		return "//" + host + ":" + port + "/" + name;
+	}
+
+}
@@ -0,0 +1,418 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm.transport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Passes large primitive arrays between jvms on the same host through memory-mapped
+ * files instead of the socket. The sender copies the array into a fresh file and
+ * serializes a {@link SharedArray} referring to the file. The receiver copies the 
+ * array out of the file and deletes it.
+ * 
+ * Note that this is not zero-copy: every array is copied once into the mapped file and 
+ * once out of it. What is saved are the copies made by serialization, the socket buffers
+ * and the frame.
+ * 
+ * Files are owned by their sender (see {@link Segments}), which deletes those files the receiver 
+ * has not consumed once they are no longer needed, for example because encoding failed, the call
+ * completed or failed, or the connection was closed. The names of the files contain the process id 
+ * of their creator. Files left behind by processes that no longer exist, for example because a jvm 
+ * was killed, are removed whenever this class is initialized.
+ * 
+ * Files are only readable and writable by their owner where the file system supports posix permissions.
+ * Each side of a connection names its files with a random token (see {@link #newToken()}) that is exchanged 
+ * when the connection is established. A receiver only reads and deletes files carrying the token of its peer,
+ * so a peer cannot make it consume files of other connections or processes.
+ * 
+ * Arrays of at least {@link #getThreshold()} bytes are shared. The threshold defaults to 
+ * {@link #DEFAULT_THRESHOLD} and can be changed via the system property {@link #THRESHOLD_PROPERTY};
+ * 0 disables sharing. Files are placed in /dev/shm if available and in the temp directory otherwise.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+final class SharedMemory {
+	
+	public static final String THRESHOLD_PROPERTY = "net.datenwerke.sandbox.sharedMemoryThreshold";
+	
+	public static final int DEFAULT_THRESHOLD = 1024 * 1024;
+	
+	private static final String PREFIX = "sandbox-";
+	private static final String SUFFIX = ".shm";
+	
+	private static final int THRESHOLD = Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD);
+	private static final File DIRECTORY = initDirectory();
+	private static final String PID = initPid();
+	
+	private static final boolean POSIX = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+	private static final FileAttribute<?> OWNER_ONLY = PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+	
+	private static final SecureRandom RANDOM = new SecureRandom();
+	
+	static {
+		sweep();
+	}
+
+	private SharedMemory() {
+	}
+	
+	private static String initPid() {
+		/* pid@host */
+		String name = ManagementFactory.getRuntimeMXBean().getName();
+		int at = name.indexOf('@');
+		return at > 0 ? name.substring(0, at) : "0";
+	}
+	
+	/**
+	 * Deletes the files of processes that no longer exist. Only supported where
+	 * processes are listed in /proc.
+	 */
+	static void sweep() {
+		if(! new File("/proc/self").isDirectory())
+			return;
+		
+		File[] files = DIRECTORY.listFiles();
+		if(null == files)
+			return;
+		
+		for(File file : files){
+			String name = file.getName();
+			if(! name.startsWith(PREFIX) || ! name.endsWith(SUFFIX))
+				continue;
+			
+			int end = name.indexOf('-', PREFIX.length());
+			if(end < 0)
+				continue;
+			String pid = name.substring(PREFIX.length(), end);
+			if(pid.isEmpty() || pid.equals(PID) || ! isNumber(pid))
+				continue;
+			
+			if(! new File("/proc", pid).exists())
+				file.delete();
+		}
+	}
+	
+	private static boolean isNumber(String str) {
+		for(int i = 0; i < str.length(); i++)
+			if(! Character.isDigit(str.charAt(i)))
+				return false;
+		return true;
+	}
+	
+	private static File initDirectory() {
+		File shm = new File("/dev/shm");
+		if(shm.isDirectory() && shm.canWrite())
+			return shm;
+		return new File(System.getProperty("java.io.tmpdir"));
+	}
+	
+	public static int getThreshold() {
+		return THRESHOLD;
+	}
+	
+	/**
+	 * Returns a new random token by which one side of a connection names its files.
+	 * 
+	 * @return
+	 */
+	public static String newToken() {
+		return String.format("%016x", RANDOM.nextLong());
+	}
+	
+	/**
+	 * Returns true if the file of the given name was created by the side of a connection
+	 * that uses the given token.
+	 * 
+	 * @param name
+	 * @param token
+	 * @return
+	 */
+	static boolean isCreatedWith(String name, String token) {
+		if(null == name || null == token || ! name.startsWith(PREFIX) || ! name.endsWith(SUFFIX) || name.indexOf('/') >= 0 || name.indexOf(File.separatorChar) >= 0)
+			return false;
+		
+		/* sandbox-pid-token-random.shm */
+		int end = name.indexOf('-', PREFIX.length());
+		return end > 0 && name.startsWith(token + "-", end + 1);
+	}
+	
+	private static File createFile(String prefix) throws IOException {
+		if(POSIX)
+			return Files.createTempFile(DIRECTORY.toPath(), prefix, SUFFIX, OWNER_ONLY).toFile();
+		return File.createTempFile(prefix, SUFFIX, DIRECTORY);
+	}
+	
+	/**
+	 * Returns a {@link SharedArray} for primitive arrays of at least the threshold size 
+	 * and the object itself otherwise.
+	 * 
+	 * @param obj
+	 * @param token the token of the sending side of the connection
+	 * @param created the files that have been created are added to this list
+	 * @return
+	 * @throws IOException
+	 */
+	public static Object share(Object obj, String token, List<File> created) throws IOException {
+		if(THRESHOLD <= 0 || null == obj || ! obj.getClass().isArray())
+			return obj;
+		
+		char type = getType(obj);
+		if(0 == type)
+			return obj;
+		
+		long size = (long) Array.getLength(obj) * getElementSize(type);
+		if(size < THRESHOLD || size > Integer.MAX_VALUE)
+			return obj;
+		
+		return SharedArray.write(obj, type, (int) size, token, created);
+	}
+	
+	private static char getType(Object array) {
+		if(array instanceof byte[])
+			return 'B';
+		if(array instanceof int[])
+			return 'I';
+		if(array instanceof long[])
+			return 'J';
+		if(array instanceof double[])
+			return 'D';
+		if(array instanceof float[])
+			return 'F';
+		if(array instanceof short[])
+			return 'S';
+		if(array instanceof char[])
+			return 'C';
+		return 0;
+	}
+	
+	private static int getElementSize(char type) {
+		switch(type){
+		case 'B': return 1;
+		case 'S': 
+		case 'C': return 2;
+		case 'I': 
+		case 'F': return 4;
+		default: return 8;
+		}
+	}
+	
+	/**
+	 * The files created for a call or a connection that the receiver may not have consumed yet.
+	 */
+	static class Segments {
+		
+		private static final int PRUNE_THRESHOLD = 64;
+		
+		private final String token;
+		private final Set<File> files = new HashSet<File>();
+		private int pruneAt = PRUNE_THRESHOLD;
+		private boolean closed = false;
+		
+		/**
+		 * @param token the token with which the files are named
+		 */
+		Segments(String token) {
+			this.token = token;
+		}
+		
+		String getToken() {
+			return token;
+		}
+		
+		/**
+		 * Tracks the given files. Files that have already been consumed are forgotten from
+		 * time to time. If the segments have been closed the files are deleted right away.
+		 * 
+		 * @param created
+		 */
+		void track(List<File> created) {
+			synchronized (this) {
+				if(! closed){
+					add(created);
+					return;
+				}
+			}
+			delete(created);
+		}
+		
+		private void add(List<File> created) {
+			files.addAll(created);
+			if(files.size() < pruneAt)
+				return;
+			
+			for(Iterator<File> it = files.iterator(); it.hasNext();)
+				if(! it.next().exists())
+					it.remove();
+			pruneAt = Math.max(PRUNE_THRESHOLD, 2 * files.size());
+		}
+		
+		/**
+		 * Deletes all tracked files that still exist. Files tracked afterwards are deleted right away.
+		 */
+		void close() {
+			List<File> released;
+			synchronized (this) {
+				closed = true;
+				released = new ArrayList<File>(files);
+				files.clear();
+			}
+			delete(released);
+		}
+		
+		static void delete(List<File> files) {
+			for(File file : files)
+				file.delete();
+		}
+	}
+	
+	/**
+	 * A reference to an array stored in a memory-mapped file.
+	 */
+	static class SharedArray implements Serializable {
+		
+		/**
+		 * 
+		 */
+		private static final long serialVersionUID = -4318709562349177406L;
+		
+		private final String name;
+		private final char type;
+		private final int size;
+		
+		private SharedArray(String name, char type, int size) {
+			this.name = name;
+			this.type = type;
+			this.size = size;
+		}
+		
+		static SharedArray write(Object array, char type, int size, String token, List<File> created) throws IOException {
+			File file = createFile(PREFIX + PID + "-" + token + "-");
+			created.add(file);
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try{
+				MappedByteBuffer buffer = raf.getChannel().map(MapMode.READ_WRITE, 0, size);
+				buffer.order(ByteOrder.nativeOrder());
+				switch(type){
+				case 'B': buffer.put((byte[]) array); break;
+				case 'I': buffer.asIntBuffer().put((int[]) array); break;
+				case 'J': buffer.asLongBuffer().put((long[]) array); break;
+				case 'D': buffer.asDoubleBuffer().put((double[]) array); break;
+				case 'F': buffer.asFloatBuffer().put((float[]) array); break;
+				case 'S': buffer.asShortBuffer().put((short[]) array); break;
+				case 'C': buffer.asCharBuffer().put((char[]) array); break;
+				}
+			} catch(IOException e){
+				raf.close();
+				file.delete();
+				throw e;
+			}
+			raf.close();
+			
+			return new SharedArray(file.getName(), type, size);
+		}
+		
+		/**
+		 * Reads the array and deletes the file.
+		 * 
+		 * @param peerToken the token of the side of the connection that sent the array
+		 * @return
+		 * @throws IOException
+		 */
+		Object read(String peerToken) throws IOException {
+			/* only accept files created by the peer */
+			if(! isCreatedWith(name, peerToken))
+				throw new InvalidObjectException("Invalid shared array: " + name);
+			
+			File file = new File(DIRECTORY, name);
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try{
+				ByteBuffer buffer = raf.getChannel().map(MapMode.READ_ONLY, 0, size);
+				buffer.order(ByteOrder.nativeOrder());
+				switch(type){
+				case 'B': {
+					byte[] array = new byte[size];
+					buffer.get(array);
+					return array;
+				}
+				case 'I': {
+					int[] array = new int[size / 4];
+					buffer.asIntBuffer().get(array);
+					return array;
+				}
+				case 'J': {
+					long[] array = new long[size / 8];
+					buffer.asLongBuffer().get(array);
+					return array;
+				}
+				case 'D': {
+					double[] array = new double[size / 8];
+					buffer.asDoubleBuffer().get(array);
+					return array;
+				}
+				case 'F': {
+					float[] array = new float[size / 4];
+					buffer.asFloatBuffer().get(array);
+					return array;
+				}
+				case 'S': {
+					short[] array = new short[size / 2];
+					buffer.asShortBuffer().get(array);
+					return array;
+				}
+				case 'C': {
+					char[] array = new char[size / 2];
+					buffer.asCharBuffer().get(array);
+					return array;
+				}
+				default:
+					throw new InvalidObjectException("Unknown array type: " + type);
+				}
+			} finally {
+				raf.close();
+				file.delete();
+			}
+		}
+	}
+}
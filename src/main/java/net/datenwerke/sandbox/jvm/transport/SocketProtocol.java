@@ -0,0 +1,236 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.datenwerke.sandbox.jvm.transport.SharedMemory.Segments;
+import net.datenwerke.sandbox.jvm.transport.SharedMemory.SharedArray;
+
+/**
+ * The wire format of the {@link SocketTransport}. 
+ * 
+ * A connection starts with the client sending {@link #MAGIC} followed by the name
+ * of the server it expects and its shared memory token, which the server acknowledges 
+ * with a boolean followed by its own token. Afterwards both sides exchange length 
+ * prefixed frames:
+ * 
+ * <pre>
+ * int    length of the remainder of the frame
+ * int    request id
+ * byte   operation (request) or status (response)
+ * byte[] payload
+ * </pre>
+ * 
+ * Responses carry the id of their request so that several requests can be 
+ * in flight on a single connection. Payloads that carry objects are 
+ * java serialized. Large primitive arrays are not written to the payload but
+ * passed via {@link SharedMemory}.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+final class SocketProtocol {
+	
+	public static final int MAGIC = 0x53425831;
+	
+	public static final int MAX_FRAME_SIZE = 256 * 1024 * 1024;
+	
+	public static final byte OP_IS_ALIVE = 1;
+	public static final byte OP_DESTROY = 2;
+	public static final byte OP_GET_NAME = 3;
+	public static final byte OP_EXECUTE = 4;
+	public static final byte OP_INIT = 5;
+	public static final byte OP_RUN_IN_CONTEXT = 6;
+	public static final byte OP_RUN_SANDBOXED = 7;
+	public static final byte OP_REGISTER_CONTEXT = 8;
+	public static final byte OP_RESET = 9;
+	public static final byte OP_CANCEL = 10;
+	public static final byte OP_GET_STATUS = 11;
+	
+	public static final byte STATUS_OK = 0;
+	public static final byte STATUS_ERROR = 1;
+	
+	public static final byte[] EMPTY = new byte[0];
+	
+	private SocketProtocol() {
+	}
+	
+	/**
+	 * A single request or response.
+	 */
+	static class Frame {
+		final int id;
+		final byte code;
+		final byte[] payload;
+		
+		Frame(int id, byte code, byte[] payload) {
+			this.id = id;
+			this.code = code;
+			this.payload = payload;
+		}
+	}
+	
+	public static void writeFrame(DataOutputStream out, int id, byte code, byte[] payload) throws IOException {
+		out.writeInt(5 + payload.length);
+		out.writeInt(id);
+		out.writeByte(code);
+		out.write(payload);
+	}
+	
+	public static Frame readFrame(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if(length < 5 || length > MAX_FRAME_SIZE)
+			throw new IOException("Invalid frame length: " + length);
+		
+		int id = in.readInt();
+		byte code = in.readByte();
+		byte[] payload = new byte[length - 5];
+		in.readFully(payload);
+		
+		return new Frame(id, code, payload);
+	}
+	
+	/**
+	 * Serializes the given values into a payload. Shared memory files created for the
+	 * payload are named with the token of the given segments and tracked by them. If 
+	 * encoding fails they are deleted.
+	 * 
+	 * @param segments
+	 * @param values
+	 * @return
+	 * @throws IOException
+	 */
+	public static byte[] encode(Segments segments, Object... values) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(512);
+		List<File> created = new ArrayList<File>();
+		boolean encoded = false;
+		try{
+			ObjectOutputStream oos = new SharingObjectOutputStream(bos, segments.getToken(), created);
+			for(Object value : values)
+				oos.writeObject(value);
+			oos.close();
+			encoded = true;
+		} finally {
+			if(encoded)
+				segments.track(created);
+			else
+				Segments.delete(created);
+		}
+		return bos.toByteArray();
+	}
+	
+	/**
+	 * Returns a stream from which the values of an encoded payload can be read in order.
+	 * Only shared memory files named with the peer's token are read.
+	 * 
+	 * @param payload
+	 * @param peerToken the token of the side of the connection that encoded the payload
+	 * @return
+	 * @throws IOException
+	 */
+	public static ObjectInputStream decode(byte[] payload, String peerToken) throws IOException {
+		return new ContextObjectInputStream(new ByteArrayInputStream(payload), peerToken);
+	}
+	
+	public static byte[] encodeString(String value) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(bos);
+		dos.writeUTF(value);
+		dos.close();
+		return bos.toByteArray();
+	}
+	
+	public static String decodeString(byte[] payload) throws IOException {
+		return new DataInputStream(new ByteArrayInputStream(payload)).readUTF();
+	}
+	
+	/**
+	 * Resolves classes via the context class loader, similar to RMI, and falls 
+	 * back to the default resolution.
+	 */
+	private static class ContextObjectInputStream extends ObjectInputStream {
+
+		private final String peerToken;
+		
+		public ContextObjectInputStream(InputStream in, String peerToken) throws IOException {
+			super(in);
+			this.peerToken = peerToken;
+			/* resolve shared arrays regardless of the local threshold */
+			enableResolveObject(true);
+		}
+		
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			if(obj instanceof SharedArray)
+				return ((SharedArray)obj).read(peerToken);
+			return obj;
+		}
+		
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			ClassLoader loader = Thread.currentThread().getContextClassLoader();
+			if(null != loader){
+				try{
+					return Class.forName(desc.getName(), false, loader);
+				} catch(ClassNotFoundException ignore){
+				}
+			}
+			return super.resolveClass(desc);
+		}
+	}
+	
+	/**
+	 * Replaces large primitive arrays by references to shared memory.
+	 */
+	private static class SharingObjectOutputStream extends ObjectOutputStream {
+		
+		private final String token;
+		private final List<File> created;
+		
+		public SharingObjectOutputStream(OutputStream out, String token, List<File> created) throws IOException {
+			super(out);
+			this.token = token;
+			this.created = created;
+			enableReplaceObject(SharedMemory.getThreshold() > 0);
+		}
+		
+		@Override
+		protected Object replaceObject(Object obj) throws IOException {
+			return SharedMemory.share(obj, token, created);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm.transport;
+
+import net.datenwerke.sandbox.jvm.server.SandboxRemoteServer;
+
+/**
+ * Accesses remote agents via a length prefixed binary protocol over a local 
+ * TCP connection (see {@link SocketProtocol}). Avoids the per call connection 
+ * handling and distributed garbage collection of RMI and allows several 
+ * requests to be in flight on one connection.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public class SocketTransport implements JvmTransport {
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.transport.JvmTransport#export(net.datenwerke.sandbox.jvm.server.SandboxRemoteServer, java.lang.String, int)
+	 */
+	@Override
+	public void export(SandboxRemoteServer server, String host, int port) throws Exception {
+		new SocketTransportServer(server, host, port).start();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.transport.JvmTransport#connect(java.lang.String, int, java.lang.String)
+	 */
+	@Override
+	public SandboxRemoteServer connect(String host, int port, String name) throws Exception {
+		return new SocketTransportClient(host, port, name);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.transport.JvmTransport#disconnect(net.datenwerke.sandbox.jvm.server.SandboxRemoteServer)
+	 */
+	@Override
+	public void disconnect(SandboxRemoteServer server) {
+		if(server instanceof SocketTransportClient)
+			((SocketTransportClient) server).close();
+	}
+
+}
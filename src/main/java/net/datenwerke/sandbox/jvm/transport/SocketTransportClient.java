@@ -0,0 +1,508 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm.transport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.rmi.ConnectException;
+import java.rmi.RemoteException;
+import java.rmi.ServerError;
+import java.rmi.ServerException;
+import java.rmi.UnmarshalException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.datenwerke.sandbox.SandboxContext;
+import net.datenwerke.sandbox.SandboxedCallResult;
+import net.datenwerke.sandbox.SandboxedEnvironment;
+import net.datenwerke.sandbox.jvm.JvmBatchListener;
+import net.datenwerke.sandbox.jvm.JvmStatus;
+import net.datenwerke.sandbox.jvm.JvmTask;
+import net.datenwerke.sandbox.jvm.server.CancellableRemoteServer;
+import net.datenwerke.sandbox.jvm.server.MonitoredRemoteServer;
+import net.datenwerke.sandbox.jvm.server.SandboxRemoteServer;
+import net.datenwerke.sandbox.jvm.transport.SharedMemory.Segments;
+import net.datenwerke.sandbox.jvm.transport.SocketProtocol.Frame;
+
+/**
+ * Client side of the {@link SocketTransport}. Calls from several threads are
+ * multiplexed over a single connection; a reader thread hands responses to 
+ * the waiting callers.
+ * 
+ * Mirroring the behavior of RMI stubs, requests that could not be sent fail with a 
+ * {@link ConnectException} while requests whose connection was lost while waiting 
+ * for the response fail with an {@link UnmarshalException}. Exceptions and errors raised by the server are 
+ * always wrapped into a {@link ServerException} or a {@link ServerError}, such that callers can tell them 
+ * apart from failures of the connection.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public class SocketTransportClient implements CancellableRemoteServer, MonitoredRemoteServer {
+
+	private static final int CONNECT_TIMEOUT = 1000;
+	
+	private final String name;
+	private final Socket socket;
+	private final DataOutputStream out;
+	private final DataInputStream in;
+	
+	/* names the shared memory files of either side */
+	private final String token = SharedMemory.newToken();
+	private final String peerToken;
+	
+	private final AtomicInteger requestIds = new AtomicInteger();
+	private final Map<Integer, PendingCall> pending = new ConcurrentHashMap<Integer, PendingCall>();
+	
+	private volatile boolean closed = false;
+	
+	protected SocketTransportClient(String host, int port, String name) throws IOException {
+		this.name = name;
+		this.socket = new Socket();
+		
+		try{
+			socket.setTcpNoDelay(true);
+			socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+			
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			
+			/* handshake */
+			out.writeInt(SocketProtocol.MAGIC);
+			out.writeUTF(name);
+			out.writeUTF(token);
+			out.flush();
+			if(! in.readBoolean())
+				throw new IOException("Server rejected connection to " + name);
+			peerToken = in.readUTF();
+		} catch(IOException e){
+			socket.close();
+			throw e;
+		}
+		
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				readResponses();
+			}
+		}, "SandboxTransportClient-" + name);
+		reader.setDaemon(true);
+		reader.start();
+	}
+	
+	private void readResponses() {
+		try{
+			while(! closed){
+				Frame frame = SocketProtocol.readFrame(in);
+				PendingCall call = pending.remove(frame.id);
+				if(null != call)
+					call.complete(frame.code, frame.payload);
+			}
+		} catch(IOException e){
+			close(e);
+		}
+	}
+	
+	/**
+	 * Closes the connection. Pending calls fail with an {@link UnmarshalException}.
+	 */
+	public void close() {
+		close(null);
+	}
+	
+	private void close(IOException cause) {
+		closed = true;
+		try{
+			socket.close();
+		} catch(IOException ignore){
+		}
+		
+		for(Integer id : pending.keySet()){
+			PendingCall call = pending.remove(id);
+			if(null != call)
+				call.fail(new UnmarshalException("Connection to " + name + " closed", cause));
+		}
+	}
+	
+	public boolean isClosed() {
+		return closed;
+	}
+	
+	protected byte[] call(byte op, byte[] payload) throws RemoteException {
+		if(closed)
+			throw new ConnectException("Connection to " + name + " closed");
+		
+		int id = requestIds.incrementAndGet();
+		PendingCall call = new PendingCall();
+		pending.put(id, call);
+		
+		try{
+			synchronized (out) {
+				SocketProtocol.writeFrame(out, id, op, payload);
+				out.flush();
+			}
+		} catch(IOException e){
+			pending.remove(id);
+			close(e);
+			throw new ConnectException("Could not send request to " + name, e);
+		}
+		
+		/* the connection might have been closed before the call was registered */
+		if(closed && null != pending.remove(id))
+			throw new UnmarshalException("Connection to " + name + " closed");
+		
+		return call.await();
+	}
+	
+	/**
+	 * Encodes the values and sends them as a single request. Shared memory files the server did not 
+	 * consume are deleted once the call completed or failed.
+	 * 
+	 * @param op
+	 * @param values
+	 * @return
+	 * @throws RemoteException
+	 */
+	protected byte[] callWith(byte op, Object... values) throws RemoteException {
+		Segments segments = new Segments(token);
+		try{
+			return call(op, encode(segments, values));
+		} finally {
+			segments.close();
+		}
+	}
+	
+	protected Object callForObject(byte op, Object... values) throws RemoteException {
+		return decodeResponse(callWith(op, values));
+	}
+	
+	protected Object decodeResponse(byte[] response) throws RemoteException {
+		try{
+			ObjectInputStream ois = SocketProtocol.decode(response, peerToken);
+			return ois.readObject();
+		} catch(Exception e){
+			throw new UnmarshalException("Could not read response from " + name, e);
+		}
+	}
+	
+	/**
+	 * Sends all tasks with a single write and informs the listener about each task as soon as
+	 * its response arrives. The listener is called from the reader thread. Returns once all
+	 * tasks completed.
+	 * 
+	 * Failures are reported as the exceptions a call to {@link #execute(JvmTask)} 
+	 * would have thrown. 
+	 * 
+	 * @param tasks
+	 * @param listener
+	 */
+	public void executeBatch(List<? extends JvmTask> tasks, final JvmBatchListener listener) {
+		final CountDownLatch done = new CountDownLatch(tasks.size());
+		
+		List<Integer> ids = new ArrayList<Integer>();
+		List<byte[]> payloads = new ArrayList<byte[]>();
+		for(int i = 0; i < tasks.size(); i++){
+			final int index = i;
+			final Segments segments = new Segments(token);
+			byte[] payload;
+			try{
+				payload = encode(segments, tasks.get(i));
+			} catch(RemoteException e){
+				listener.failed(index, e);
+				done.countDown();
+				continue;
+			}
+			
+			int id = requestIds.incrementAndGet();
+			pending.put(id, new PendingCall(){
+				@Override
+				protected void done() {
+					try{
+						listener.completed(index, (SandboxedCallResult) decodeResponse(resolve()));
+					} catch(RemoteException e){
+						listener.failed(index, e);
+					} catch(RuntimeException e){
+						listener.failed(index, e);
+					} catch(Error e){
+						listener.failed(index, new RemoteException(e.getMessage(), e));
+					} finally {
+						segments.close();
+						done.countDown();
+					}
+				}
+			});
+			ids.add(id);
+			payloads.add(payload);
+		}
+		
+		try{
+			if(closed)
+				throw new IOException("Connection to " + name + " closed");
+			synchronized (out) {
+				for(int i = 0; i < ids.size(); i++)
+					SocketProtocol.writeFrame(out, ids.get(i), SocketProtocol.OP_EXECUTE, payloads.get(i));
+				out.flush();
+			}
+		} catch(IOException e){
+			for(Integer id : ids){
+				PendingCall call = pending.remove(id);
+				if(null != call)
+					call.fail(new ConnectException("Could not send request to " + name, e));
+			}
+			close(e);
+		}
+		
+		/* the connection might have been closed before the calls were registered */
+		if(closed){
+			for(Integer id : ids){
+				PendingCall call = pending.remove(id);
+				if(null != call)
+					call.fail(new UnmarshalException("Connection to " + name + " closed"));
+			}
+		}
+		
+		boolean interrupted = false;
+		while(true){
+			try{
+				done.await();
+				break;
+			} catch(InterruptedException e){
+				interrupted = true;
+			}
+		}
+		if(interrupted)
+			Thread.currentThread().interrupt();
+	}
+	
+	protected byte[] encode(Segments segments, Object... values) throws RemoteException {
+		try{
+			return SocketProtocol.encode(segments, values);
+		} catch(IOException e){
+			throw new RemoteException("Could not encode request to " + name, e);
+		}
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.server.SandboxRemoteServer#isAlive()
+	 */
+	@Override
+	public boolean isAlive() throws RemoteException {
+		byte[] response = call(SocketProtocol.OP_IS_ALIVE, SocketProtocol.EMPTY);
+		return response.length > 0 && response[0] != 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.server.SandboxRemoteServer#destroy()
+	 */
+	@Override
+	public void destroy() throws RemoteException {
+		/* the server exits without answering */
+		try{
+			synchronized (out) {
+				SocketProtocol.writeFrame(out, requestIds.incrementAndGet(), SocketProtocol.OP_DESTROY, SocketProtocol.EMPTY);
+				out.flush();
+			}
+		} catch(IOException e){
+			throw new ConnectException("Could not send request to " + name, e);
+		} finally {
+			close();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.server.SandboxRemoteServer#getName()
+	 */
+	@Override
+	public String getName() throws RemoteException {
+		byte[] response = call(SocketProtocol.OP_GET_NAME, SocketProtocol.EMPTY);
+		try {
+			return SocketProtocol.decodeString(response);
+		} catch (IOException e) {
+			throw new UnmarshalException("Could not read response from " + name, e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.server.SandboxRemoteServer#execute(net.datenwerke.sandbox.jvm.JvmTask)
+	 */
+	@Override
+	public SandboxedCallResult execute(JvmTask task) throws RemoteException {
+		return (SandboxedCallResult) callForObject(SocketProtocol.OP_EXECUTE, task);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.server.CancellableRemoteServer#cancel(long)
+	 */
+	@Override
+	public boolean cancel(long taskId) throws RemoteException {
+		byte[] response = call(SocketProtocol.OP_CANCEL, ByteBuffer.allocate(8).putLong(taskId).array());
+		return response.length > 0 && response[0] != 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.server.MonitoredRemoteServer#getStatus()
+	 */
+	@Override
+	public JvmStatus getStatus() throws RemoteException {
+		return (JvmStatus) decodeResponse(call(SocketProtocol.OP_GET_STATUS, SocketProtocol.EMPTY));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.server.SandboxRemoteServer#init(net.datenwerke.sandbox.SandboxContext)
+	 */
+	@Override
+	public void init(SandboxContext context) throws RemoteException {
+		callWith(SocketProtocol.OP_INIT, context);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.server.SandboxRemoteServer#runInContext(java.lang.Class, java.lang.Object[])
+	 */
+	@Override
+	public SandboxedCallResult runInContext(Class<? extends SandboxedEnvironment> call, Object... args) throws RemoteException {
+		return (SandboxedCallResult) callForObject(SocketProtocol.OP_RUN_IN_CONTEXT, call, args);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.server.SandboxRemoteServer#runSandboxed(java.lang.Class, java.lang.Object[])
+	 */
+	@Override
+	public SandboxedCallResult runSandboxed(Class<? extends SandboxedEnvironment> call, Object... args) throws RemoteException {
+		return (SandboxedCallResult) callForObject(SocketProtocol.OP_RUN_SANDBOXED, call, args);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.server.SandboxRemoteServer#registerContext(java.lang.String, net.datenwerke.sandbox.SandboxContext)
+	 */
+	@Override
+	public void registerContext(String name, SandboxContext context) throws RemoteException {
+		callWith(SocketProtocol.OP_REGISTER_CONTEXT, name, context);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.datenwerke.sandbox.jvm.server.SandboxRemoteServer#reset()
+	 */
+	@Override
+	public void reset() throws RemoteException {
+		call(SocketProtocol.OP_RESET, SocketProtocol.EMPTY);
+	}
+	
+	/**
+	 * A request waiting for its response.
+	 */
+	private class PendingCall {
+		private final CountDownLatch done = new CountDownLatch(1);
+		private byte status;
+		private byte[] payload;
+		private RemoteException failure;
+		
+		void complete(byte status, byte[] payload) {
+			this.status = status;
+			this.payload = payload;
+			done.countDown();
+			done();
+		}
+		
+		void fail(RemoteException failure) {
+			this.failure = failure;
+			done.countDown();
+			done();
+		}
+		
+		/**
+		 * Called once the call completed, from the thread that completed it.
+		 */
+		protected void done() {
+		}
+		
+		byte[] await() throws RemoteException {
+			boolean interrupted = false;
+			while(true){
+				try{
+					done.await();
+					break;
+				} catch(InterruptedException e){
+					interrupted = true;
+				}
+			}
+			if(interrupted)
+				Thread.currentThread().interrupt();
+			
+			return resolve();
+		}
+		
+		/**
+		 * Returns the payload of a successful response or throws the reported exception. Must 
+		 * only be called once the call completed.
+		 * 
+		 * @return
+		 * @throws RemoteException
+		 */
+		byte[] resolve() throws RemoteException {
+			if(null != failure)
+				throw failure;
+			if(SocketProtocol.STATUS_OK == status)
+				return payload;
+			
+			Throwable error;
+			try{
+				error = (Throwable) SocketProtocol.decode(payload, peerToken).readObject();
+			} catch(Exception e){
+				throw new ServerException("Exception occurred in server thread", new UnmarshalException("Could not read exception from " + name, e));
+			}
+			
+			/* failures of the server are always reported as ServerException or ServerError */
+			if(error instanceof RemoteException)
+				throw new ServerException("RemoteException occurred in server thread", (RemoteException) error);
+			if(error instanceof Error)
+				throw new ServerError("Error occurred in server thread", (Error) error);
+			if(error instanceof Exception)
+				throw new ServerException("Exception occurred in server thread", (Exception) error);
+			throw new ServerException("Exception occurred in server thread", new RemoteException(String.valueOf(error)));
+		}
+	}
+
+}
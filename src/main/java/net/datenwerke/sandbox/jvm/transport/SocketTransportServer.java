@@ -0,0 +1,233 @@
+/*
+*  java-sandbox
+*  Copyright (c) 2012 datenwerke Jan Albrecht
+*  http://www.datenwerke.net
+*  
+*  This file is part of the java-sandbox: https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  This program is free software: you can redistribute it and/or modify
+*  it under the terms of the GNU General Public License as published by
+*  the Free Software Foundation, either version 3 of the License, or
+*  (at your option) any later version.
+
+*  This program is distributed in the hope that it will be useful,
+*  but WITHOUT ANY WARRANTY; without even the implied warranty of
+*  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+*  GNU General Public License for more details.
+*
+*  You should have received a copy of the GNU General Public License
+*  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+*
+*/
+
+package net.datenwerke.sandbox.jvm.transport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.rmi.RemoteException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.datenwerke.sandbox.SandboxContext;
+import net.datenwerke.sandbox.SandboxedEnvironment;
+import net.datenwerke.sandbox.jvm.JvmTask;
+import net.datenwerke.sandbox.jvm.server.CancellableRemoteServer;
+import net.datenwerke.sandbox.jvm.server.MonitoredRemoteServer;
+import net.datenwerke.sandbox.jvm.server.SandboxRemoteServer;
+import net.datenwerke.sandbox.jvm.transport.SharedMemory.Segments;
+import net.datenwerke.sandbox.jvm.transport.SocketProtocol.Frame;
+
+/**
+ * Server side of the {@link SocketTransport}. Accepts connections on the loopback
+ * interface and dispatches each request to a worker thread, so that requests
+ * on one connection do not block each other. Shared memory files created for the 
+ * responses on a connection are deleted when the connection is closed, unless the 
+ * client consumed them before.
+ * 
+ * @author Arno Mittelbach
+ *
+ */
+public class SocketTransportServer {
+
+	private final Logger logger = Logger.getLogger(getClass().getName());
+	
+	private final SandboxRemoteServer server;
+	private final ServerSocket serverSocket;
+	private final ExecutorService executor;
+	
+	public SocketTransportServer(SandboxRemoteServer server, String host, int port) throws IOException {
+		this.server = server;
+		this.serverSocket = new ServerSocket(port, 50, InetAddress.getByName(host));
+		this.executor = Executors.newCachedThreadPool(new ThreadFactory() {
+			private final AtomicInteger number = new AtomicInteger();
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "SandboxTransportWorker-" + number.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	/**
+	 * Starts accepting connections. The accepting thread keeps the jvm alive.
+	 */
+	public void start() {
+		Thread acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while(! serverSocket.isClosed()){
+					try{
+						final Socket socket = serverSocket.accept();
+						socket.setTcpNoDelay(true);
+						Thread connection = new Thread(new Runnable() {
+							@Override
+							public void run() {
+								serve(socket);
+							}
+						}, "SandboxTransportConnection");
+						connection.setDaemon(true);
+						connection.start();
+					} catch(IOException e){
+						if(! serverSocket.isClosed())
+							logger.log(Level.WARNING, "could not accept connection", e);
+					}
+				}
+			}
+		}, "SandboxTransportAcceptor");
+		acceptor.start();
+	}
+	
+	public void close() throws IOException {
+		serverSocket.close();
+		executor.shutdownNow();
+	}
+	
+	protected void serve(Socket socket) {
+		final Segments segments = new Segments(SharedMemory.newToken());
+		try{
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			
+			/* handshake */
+			boolean accepted = SocketProtocol.MAGIC == in.readInt() && server.getName().equals(in.readUTF());
+			final String peerToken = accepted ? in.readUTF() : null;
+			out.writeBoolean(accepted);
+			if(accepted)
+				out.writeUTF(segments.getToken());
+			out.flush();
+			if(! accepted){
+				socket.close();
+				return;
+			}
+			
+			while(true){
+				final Frame request = SocketProtocol.readFrame(in);
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						respond(out, request, segments, peerToken);
+					}
+				});
+			}
+		} catch(IOException e){
+			/* connection closed */
+		} finally {
+			try{
+				socket.close();
+			} catch(IOException ignore){
+			}
+			segments.close();
+		}
+	}
+	
+	protected void respond(DataOutputStream out, Frame request, Segments segments, String peerToken) {
+		byte status;
+		byte[] payload;
+		try{
+			payload = handle(request, segments, peerToken);
+			status = SocketProtocol.STATUS_OK;
+		} catch(Throwable e){
+			status = SocketProtocol.STATUS_ERROR;
+			try{
+				payload = SocketProtocol.encode(segments, e);
+			} catch(IOException ex){
+				/* the exception might not be serializable */
+				try{
+					payload = SocketProtocol.encode(segments, new RemoteException(String.valueOf(e)));
+				} catch(IOException ignore){
+					payload = SocketProtocol.EMPTY;
+				}
+			}
+		}
+		
+		try{
+			synchronized (out) {
+				SocketProtocol.writeFrame(out, request.id, status, payload);
+				out.flush();
+			}
+		} catch(IOException e){
+			logger.log(Level.FINE, "could not send response", e);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	protected byte[] handle(Frame request, Segments segments, String peerToken) throws Exception {
+		switch(request.code){
+		case SocketProtocol.OP_IS_ALIVE:
+			return new byte[]{(byte) (server.isAlive() ? 1 : 0)};
+		case SocketProtocol.OP_DESTROY:
+			server.destroy();
+			return SocketProtocol.EMPTY;
+		case SocketProtocol.OP_GET_NAME:
+			return SocketProtocol.encodeString(server.getName());
+		case SocketProtocol.OP_EXECUTE:
+			return SocketProtocol.encode(segments, server.execute((JvmTask) SocketProtocol.decode(request.payload, peerToken).readObject()));
+		case SocketProtocol.OP_INIT:
+			server.init((SandboxContext) SocketProtocol.decode(request.payload, peerToken).readObject());
+			return SocketProtocol.EMPTY;
+		case SocketProtocol.OP_RUN_IN_CONTEXT:{
+			ObjectInputStream ois = SocketProtocol.decode(request.payload, peerToken);
+			Class<? extends SandboxedEnvironment> call = (Class<? extends SandboxedEnvironment>) ois.readObject();
+			return SocketProtocol.encode(segments, server.runInContext(call, (Object[]) ois.readObject()));
+		}
+		case SocketProtocol.OP_RUN_SANDBOXED:{
+			ObjectInputStream ois = SocketProtocol.decode(request.payload, peerToken);
+			Class<? extends SandboxedEnvironment> call = (Class<? extends SandboxedEnvironment>) ois.readObject();
+			return SocketProtocol.encode(segments, server.runSandboxed(call, (Object[]) ois.readObject()));
+		}
+		case SocketProtocol.OP_REGISTER_CONTEXT:{
+			ObjectInputStream ois = SocketProtocol.decode(request.payload, peerToken);
+			String name = (String) ois.readObject();
+			server.registerContext(name, (SandboxContext) ois.readObject());
+			return SocketProtocol.EMPTY;
+		}
+		case SocketProtocol.OP_RESET:
+			server.reset();
+			return SocketProtocol.EMPTY;
+		case SocketProtocol.OP_GET_STATUS:
+			if(! (server instanceof MonitoredRemoteServer))
+				throw new UnsupportedOperationException("The server does not report its status");
+			return SocketProtocol.encode(segments, ((MonitoredRemoteServer)server).getStatus());
+		case SocketProtocol.OP_CANCEL:
+			if(! (server instanceof CancellableRemoteServer))
+				return new byte[]{0};
+			return new byte[]{(byte) (((CancellableRemoteServer)server).cancel(ByteBuffer.wrap(request.payload).getLong()) ? 1 : 0)};
+		default:
+			throw new IllegalArgumentException("Unknown operation: " + request.code);
+		}
+	}
+}
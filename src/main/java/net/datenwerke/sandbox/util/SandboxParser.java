@@ -41,6 +41,7 @@ import net.datenwerke.sandbox.SandboxService;
 import net.datenwerke.sandbox.jvm.JvmInstantiatorImpl;
 import net.datenwerke.sandbox.jvm.JvmPoolConfigImpl;
 import net.datenwerke.sandbox.jvm.JvmPoolImpl;
+import net.datenwerke.sandbox.jvm.transport.RmiTransport;
 import net.datenwerke.sandbox.permissions.ClassPermission;
 import net.datenwerke.sandbox.permissions.FileEqualsPermission;
 import net.datenwerke.sandbox.permissions.FilePrefixPermission;
@@ -68,7 +69,7 @@ import org.apache.commons.configuration.SubnodeConfiguration;
  *   <security>
  *     <properties>
  *       <remote enable="false" configureService="false">
- *         <jvm poolsize="2" freelancersize"2">
+ *         <jvm poolsize="2" freelancersize"2" transport="socket">
  *          <vmargs></vmargs>
  *          <rmi minport="10000" maxport="10200" />
  *         </jvm>
@@ -201,12 +202,15 @@ public class SandboxParser {
 					String vmArgs = properties.getString("remote.jvm.vmargs", null);
 					Integer rmiMinPort = properties.getInteger("remote.jvm.rmi[@minport]", 10000);
 					Integer rmiMaxPort = properties.getInteger("remote.jvm.rmi[@maxport]", 10200);
+					String transport = properties.getString("remote.jvm[@transport]", "socket");
+					
+					JvmInstantiatorImpl instantiator = new JvmInstantiatorImpl(rmiMinPort, rmiMaxPort, null != vmArgs && "".equals(vmArgs.trim()) ? null : vmArgs);
+					if("rmi".equalsIgnoreCase(transport))
+						instantiator.setTransport(new RmiTransport());
 					
 					sandboxService.shutdownJvmPool();
 					JvmPoolImpl jvmPoolImpl = new JvmPoolImpl(
-						new JvmPoolConfigImpl(poolsize, freelancersize, 
-							new JvmInstantiatorImpl(rmiMinPort, rmiMaxPort, null != vmArgs && "".equals(vmArgs.trim()) ? null : vmArgs)
-						)
+						new JvmPoolConfigImpl(poolsize, freelancersize, instantiator)
 					);
 					sandboxService.initJvmPool(jvmPoolImpl);
 				} else {
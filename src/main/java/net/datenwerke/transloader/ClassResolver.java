@@ -0,0 +1,76 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+
+package net.datenwerke.transloader;
+
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.datenwerke.transloader.except.Assert;
+
+/**
+ * Loads <code>Class</code>es by name from a single <code>ClassLoader</code> through
+ * {@link ClassWrapper#getClassFrom(ClassLoader, String)} and remembers them for as long as the resolver is in use. A
+ * cloning operation creates its own resolver, so each name is looked up once per operation while every new operation
+ * asks the <code>ClassLoader</code>, and hence any access checks it performs, again.
+ *
+ * @author arno
+ */
+public final class ClassResolver {
+    private final ClassLoader classLoader;
+    private final Map resolved = new ConcurrentHashMap();
+
+    /**
+     * Constructs a new <code>ClassResolver</code> loading from the given <code>ClassLoader</code>.
+     *
+     * @param classLoader the <code>ClassLoader</code> with which to load <code>Class</code>es
+     */
+    public ClassResolver(ClassLoader classLoader) {
+        Assert.isNotNull(classLoader);
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Gets the <code>ClassLoader</code> this resolver loads from.
+     *
+     * @return the <code>ClassLoader</code>
+     */
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Loads the <code>Class</code> with the given name, unless this resolver loaded it before.
+     *
+     * @param className the name of the <code>Class</code>
+     * @return the <code>Class</code> with the given name loaded from the <code>ClassLoader</code> of this resolver
+     * @throws net.datenwerke.transloader.except.TransloaderException if the <code>Class</code> cannot be found
+     */
+    public Class getClassFrom(String className) {
+        Class type = (Class) resolved.get(className);
+        if (type == null) {
+            type = ClassWrapper.getClassFrom(classLoader, className);
+            resolved.put(className, type);
+        }
+        return type;
+    }
+}
@@ -21,12 +21,20 @@
 package net.datenwerke.transloader;
 
 
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang.ClassUtils;
 
 import net.datenwerke.transloader.clone.CloningStrategy;
+import net.datenwerke.transloader.clone.reflect.decide.ImmutableTypes;
 import net.datenwerke.transloader.except.Assert;
 import net.datenwerke.transloader.except.TransloaderException;
 
@@ -37,6 +45,13 @@ import net.datenwerke.transloader.except.TransloaderException;
  * @author Jeremy Wales
  */
 public final class ObjectWrapper {
+    private static final Object[] NO_PARAMS = new Object[]{};
+    /*
+     * wrapped Class -> (parameter ClassLoader -> (interface Method -> Method of the wrapped Class)), held softly so that
+     * all of them can be collected. The parameter ClassLoader is part of the key as it resolves the parameter types.
+     */
+    private static final Map TARGETS = new WeakHashMap();
+
     private final Object wrappedObject;
     private final CloningStrategy cloner;
     private final ClassLoader paramLoader;
@@ -137,7 +152,7 @@ public final class ObjectWrapper {
             Class wrappedClass = getUnwrappedSelf().getClass();
             Class[] parameterTypes = ClassWrapper.getClassesFrom(paramLoader, description.getParameterTypeNames());
             // TODO parameterise cloning of parameters... not always desired
-            Object[] clonedParameters = (Object[]) cloner.cloneObjectUsing(paramLoader, description.getParameters());
+            Object[] clonedParameters = cloneParameters(description.getParameters());
             Method method = wrappedClass.getMethod(description.getMethodName(), parameterTypes);
             return method.invoke(getUnwrappedSelf(), clonedParameters);
         } catch (Exception e) {
@@ -147,6 +162,76 @@ public final class ObjectWrapper {
         }
     }
 
+    /**
+     * Invokes on the wrapped object the method matching the given interface <code>Method</code>. The matching method
+     * of the wrapped object's <code>Class</code> is resolved once per interface <code>Method</code>, <code>Class</code>
+     * and parameter <code>ClassLoader</code> and remembered. Parameters are cloned as by {@link #invoke(InvocationDescription)}.
+     *
+     * @param method     the interface <code>Method</code> that was called
+     * @param parameters the parameters to the method invocation (can be <code>null</code>)
+     * @return the result of invoking the matching method on the wrapped object
+     */
+    Object invoke(Method method, Object[] parameters) {
+        try {
+            Object[] clonedParameters = cloneParameters(parameters == null ? NO_PARAMS : parameters);
+            return targetOf(method).invoke(getUnwrappedSelf(), clonedParameters);
+        } catch (Exception e) {
+            throw new TransloaderException("Exception from invoking '" + method + "' on '" + getUnwrappedSelf() + "'.", e);
+        }
+    }
+
+    private Method targetOf(Method method) throws NoSuchMethodException {
+        Class wrappedClass = getUnwrappedSelf().getClass();
+        Map targets = targetsIn(wrappedClass, paramLoader);
+        Method target = (Method) targets.get(method);
+        if (target == null) {
+            Class[] parameterTypes = method.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++)
+                parameterTypes[i] = ClassWrapper.getClassFrom(paramLoader, parameterTypes[i].getName());
+            target = wrappedClass.getMethod(method.getName(), parameterTypes);
+            targets.put(method, target);
+        }
+        return target;
+    }
+
+    private static Map targetsIn(Class wrappedClass, ClassLoader paramLoader) {
+        synchronized (TARGETS) {
+            Reference cached = (Reference) TARGETS.get(wrappedClass);
+            Map byLoader = cached == null ? null : (Map) cached.get();
+            if (byLoader == null) {
+                byLoader = new WeakHashMap(2);
+                TARGETS.put(wrappedClass, new SoftReference(byLoader));
+            }
+            Map targets = (Map) byLoader.get(paramLoader);
+            if (targets == null) {
+                targets = new ConcurrentHashMap();
+                byLoader.put(paramLoader, targets);
+            }
+            return targets;
+        }
+    }
+
+    /*
+     * Only clones the parameters if at least one of them could differ on the other side, keeping the identities
+     * between parameters intact when cloning.
+     */
+    private Object[] cloneParameters(Object[] parameters) throws Exception {
+        for (int i = 0; i < parameters.length; i++) {
+            if (!isShared(parameters[i]))
+                return (Object[]) cloner.cloneObjectUsing(paramLoader, parameters);
+        }
+        return parameters;
+    }
+
+    /* null, primitive wrappers and immutables from the bootstrap ClassLoader are the same everywhere */
+    private static boolean isShared(Object parameter) {
+        if (parameter == null)
+            return true;
+        Class type = parameter.getClass();
+        return type.getClassLoader() == null
+                && (ClassUtils.wrapperToPrimitive(type) != null || ImmutableTypes.DEFAULT.isImmutable(type));
+    }
+
     /**
      * Makes an implementation of the given <code>interface</code> that calls through to the wrapped object. This is
      * particularly useful if you have access in the current <code>ClassLoader</code> to an interface that the wrapped
@@ -171,7 +256,7 @@ public final class ObjectWrapper {
 
     private class Invoker implements InvocationHandler {
 		public Object invoke(Object proxy, Method method, Object[] parameters) throws Throwable {
-			return ObjectWrapper.this.invoke(new InvocationDescription(method, parameters));
+			return ObjectWrapper.this.invoke(method, parameters);
 		}
 	}
 }
@@ -20,22 +20,48 @@
 
 package net.datenwerke.transloader.clone;
 
+import net.datenwerke.transloader.ClassWrapper;
 import net.datenwerke.transloader.except.Assert;
+import net.datenwerke.transloader.except.TransloaderException;
 
-import org.apache.commons.io.input.ClassLoaderObjectInputStream;
 import org.apache.commons.lang.SerializationException;
-import org.apache.commons.lang.SerializationUtils;
 
-import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
- * A <code>CloningStrategy</code> that uses Java Serialization as its mechanism.
+ * A <code>CloningStrategy</code> that uses Java Serialization as its mechanism. Each thread keeps a pair of object
+ * streams per target <code>ClassLoader</code>, which are reset after every clone and read the serialized form
+ * straight out of the reused buffer it was written to. Classes are resolved in the target <code>ClassLoader</code>
+ * through {@link ClassWrapper#getClassFrom(ClassLoader, String)}.
  *
  * @author Jeremy Wales
  */
 public final class SerializationCloningStrategy implements CloningStrategy {
+    /* channels whose buffer has grown beyond this or that know more descriptors are not kept for the next clone */
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+    private static final int MAX_DESCRIPTORS = 1024;
+    private static final int NEW_DESCRIPTOR = -1;
+
+    /* per thread: target ClassLoader -> Channel */
+    private static final ThreadLocal CHANNELS = new ThreadLocal() {
+        protected Object initialValue() {
+            return new WeakHashMap();
+        }
+    };
+
     /**
      * {@inheritDoc}
      *
@@ -46,13 +72,183 @@ public final class SerializationCloningStrategy implements CloningStrategy {
      */
     public Object cloneObjectUsing(ClassLoader targetLoader, Object original) throws ClassCastException, SerializationException, IOException, ClassNotFoundException {
         Assert.areNotNull(targetLoader, original);
-        byte[] serializedOriginal = SerializationUtils.serialize((Serializable) original);
-        return deserialize(serializedOriginal, targetLoader);
+        Serializable serializable = (Serializable) original;
+        Map channels = (Map) CHANNELS.get();
+        /* taken out while in use, so that a nested clone (e.g. from readObject) gets a channel of its own */
+        Channel channel = (Channel) channels.remove(targetLoader);
+        if (channel == null)
+            channel = new Channel(targetLoader);
+        Object clone = channel.cloneOf(serializable);
+        if (channel.isReusable())
+            channels.put(targetLoader, channel);
+        return clone;
 	}
 
-    private Object deserialize(byte[] serializedOriginal, ClassLoader targetLoader) throws ClassNotFoundException, IOException {
-        ByteArrayInputStream byteStream = new ByteArrayInputStream(serializedOriginal);
-        ClassLoaderObjectInputStream objectStream = new ClassLoaderObjectInputStream(targetLoader, byteStream);
-        return objectStream.readObject();
+    /*
+     * An output stream feeding an input stream through a shared buffer. Both sides are reset after each object, so
+     * that neither keeps a reference to an original or its clone. Class descriptors survive the reset: each is sent
+     * and resolved once per Channel and afterwards only referred to by number.
+     */
+    private static final class Channel {
+        private final Buffer buffer = new Buffer();
+        private final Source source = new Source();
+        private final DescriptorWritingOutputStream output;
+        private final TargetObjectInputStream input;
+        private boolean broken;
+
+        private Channel(ClassLoader targetLoader) throws IOException {
+            try {
+                output = new DescriptorWritingOutputStream(buffer);
+                output.flush();
+            } catch (IOException e) {
+                throw new SerializationException(e);
+            }
+            source.fill(buffer);
+            input = new TargetObjectInputStream(source, targetLoader);
+            buffer.reset();
+        }
+
+        private Object cloneOf(Serializable original) throws SerializationException, IOException, ClassNotFoundException {
+            broken = true;
+            try {
+                output.writeObject(original);
+                output.reset();
+                output.writeObject(null);
+                output.flush();
+            } catch (IOException e) {
+                throw new SerializationException(e);
+            }
+            source.fill(buffer);
+            Object clone = input.readObject();
+            /* consumes the reset */
+            input.readObject();
+            buffer.reset();
+            source.clear();
+            broken = false;
+            return clone;
+        }
+
+        private boolean isReusable() {
+            return !broken && buffer.capacity() <= MAX_RETAINED_BUFFER && input.descriptors.size() <= MAX_DESCRIPTORS;
+        }
+    }
+
+    private static final class Buffer extends ByteArrayOutputStream {
+        private Buffer() {
+            super(4096);
+        }
+
+        private byte[] bytes() {
+            return buf;
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+    }
+
+    /* reads what has been written to a Buffer without copying it */
+    private static final class Source extends InputStream {
+        private byte[] bytes = new byte[0];
+        private int position;
+        private int count;
+
+        private void fill(Buffer buffer) {
+            bytes = buffer.bytes();
+            position = 0;
+            count = buffer.size();
+        }
+
+        private void clear() {
+            bytes = new byte[0];
+            position = 0;
+            count = 0;
+        }
+
+        public int read() {
+            return position < count ? bytes[position++] & 0xff : -1;
+        }
+
+        public int read(byte[] target, int offset, int length) {
+            if (length == 0)
+                return 0;
+            if (position >= count)
+                return -1;
+            int read = Math.min(length, count - position);
+            System.arraycopy(bytes, position, target, offset, read);
+            position += read;
+            return read;
+        }
+
+        public int available() {
+            return count - position;
+        }
+    }
+
+    private static final class DescriptorWritingOutputStream extends ObjectOutputStream {
+        /* Class -> number, weakly so that the originals' ClassLoaders can still be collected */
+        private final Map numbers = new WeakHashMap();
+        private int sent;
+
+        private DescriptorWritingOutputStream(ByteArrayOutputStream out) throws IOException {
+            super(out);
+        }
+
+        protected void writeClassDescriptor(ObjectStreamClass description) throws IOException {
+            Integer number = (Integer) numbers.get(description.forClass());
+            if (number != null) {
+                writeInt(number.intValue());
+                return;
+            }
+            writeInt(NEW_DESCRIPTOR);
+            super.writeClassDescriptor(description);
+            numbers.put(description.forClass(), Integer.valueOf(sent++));
+        }
+    }
+
+    private static final class TargetObjectInputStream extends ObjectInputStream {
+        /* weakly, as the Channel is kept in a Map keyed by the same ClassLoader */
+        private final Reference targetLoader;
+        /* descriptors in the order they were first sent */
+        private final List descriptors = new ArrayList();
+
+        private TargetObjectInputStream(InputStream in, ClassLoader targetLoader) throws IOException {
+            super(in);
+            this.targetLoader = new WeakReference(targetLoader);
+        }
+
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            int number = readInt();
+            if (number != NEW_DESCRIPTOR)
+                return (ObjectStreamClass) descriptors.get(number);
+            ObjectStreamClass description = super.readClassDescriptor();
+            descriptors.add(description);
+            return description;
+        }
+
+        protected Class resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+            try {
+                return ClassWrapper.getClassFrom(targetLoader(), description.getName());
+            } catch (TransloaderException e) {
+                return super.resolveClass(description);
+            }
+        }
+
+        protected Class resolveProxyClass(String[] interfaceNames) throws IOException, ClassNotFoundException {
+            Class[] interfaces = new Class[interfaceNames.length];
+            try {
+                for (int i = 0; i < interfaces.length; i++)
+                    interfaces[i] = ClassWrapper.getClassFrom(targetLoader(), interfaceNames[i]);
+                return Proxy.getProxyClass(targetLoader(), interfaces);
+            } catch (TransloaderException e) {
+                return super.resolveProxyClass(interfaceNames);
+            } catch (IllegalArgumentException e) {
+                return super.resolveProxyClass(interfaceNames);
+            }
+        }
+
+        private ClassLoader targetLoader() {
+            return (ClassLoader) targetLoader.get();
+        }
     }
 }
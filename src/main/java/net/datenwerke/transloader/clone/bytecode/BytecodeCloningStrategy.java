@@ -0,0 +1,72 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.clone.bytecode;
+
+
+import net.datenwerke.transloader.clone.CloningStrategy;
+import net.datenwerke.transloader.clone.reflect.decide.CloningDecisionStrategy;
+import net.datenwerke.transloader.clone.reflect.instantiate.CloneInstantiater;
+import net.datenwerke.transloader.except.Assert;
+
+/**
+ * A <code>CloningStrategy</code> that copies fields through generated code rather than Java Reflection. Fields are
+ * accessed by their memory offsets; once a <code>Class</code> has been copied often enough a copier with straight-line
+ * code for its field layout is generated with Javassist and reused for every later call, whichever
+ * <code>ClassLoader</code>s are involved. Which objects are cloned is decided as by
+ * {@link net.datenwerke.transloader.clone.reflect.ReflectionCloningStrategy}.
+ * <p>
+ * The field offsets and the copying itself rely on <code>sun.misc.Unsafe</code>. This is a deliberate trade-off for
+ * speed: compiling this package causes a proprietary API warning that javac cannot suppress, and the strategy only
+ * works on JVMs that provide <code>sun.misc.Unsafe</code>. Final fields of clones are written the same way as all
+ * other fields, so, just as with the reflective <code>Field.set</code> used by the other strategies, clones get none
+ * of the visibility guarantees of final fields and must be handed to other threads through proper synchronization.
+ * </p>
+ *
+ * @author arno
+ */
+public final class BytecodeCloningStrategy implements CloningStrategy {
+    private final CloningDecisionStrategy decider;
+    private final CloneInstantiater instantiater;
+
+    /**
+     * Constructs a new <code>BytecodeCloningStrategy</code> with its dependencies injected.
+     *
+     * @param decider      the strategy by which the decision to clone or not to clone a particular given object is made
+     * @param instantiater the strategy by which to instantiate shallow clones
+     */
+    public BytecodeCloningStrategy(CloningDecisionStrategy decider, CloneInstantiater instantiater) {
+        Assert.areNotNull(decider, instantiater);
+        this.decider = decider;
+        this.instantiater = instantiater;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return a completely or partially cloned object graph, depending on the <code>CloningDecisionStrategy</code>
+     *         injected, with potentially the <code>original</code> itself being the top-level object in the graph
+     *         returned if it was not cloned
+     */
+    public Object cloneObjectUsing(ClassLoader targetLoader, Object original) throws Exception {
+        Assert.areNotNull(targetLoader, original);
+        return new CloneOperation(targetLoader, decider, instantiater).cloneGraphOf(original);
+    }
+}
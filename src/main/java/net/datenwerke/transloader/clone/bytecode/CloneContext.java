@@ -0,0 +1,39 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.clone.bytecode;
+
+/**
+ * The callback through which a {@link FieldCopier} maps the objects referenced by an original to their clones.
+ *
+ * @author arno
+ */
+public interface CloneContext {
+    /**
+     * Retrieves the clone of the given object, scheduling it for having its own references copied if it has not
+     * been seen before.
+     *
+     * @param original the referenced object (can be <code>null</code>)
+     * @return the clone of <code>original</code>, <code>original</code> itself if it is not to be cloned or
+     *         <code>null</code> if <code>original</code> is <code>null</code>
+     * @throws Exception can throw any <code>Exception</code> thrown by the decision or instantiation strategies
+     */
+    Object cloneOf(Object original) throws Exception;
+}
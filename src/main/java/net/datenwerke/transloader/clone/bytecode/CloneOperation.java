@@ -0,0 +1,157 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.clone.bytecode;
+
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.datenwerke.transloader.ClassResolver;
+import net.datenwerke.transloader.clone.reflect.decide.CloningDecisionStrategy;
+import net.datenwerke.transloader.clone.reflect.instantiate.CloneInstantiater;
+import net.datenwerke.transloader.clone.reflect.internal.CloneGraphOperation;
+import net.datenwerke.transloader.clone.reflect.internal.IdentityTable;
+import net.datenwerke.transloader.except.TransloaderException;
+import net.datenwerke.transloader.reference.field.FieldCache;
+
+/**
+ * Clones one object graph. Objects are instantiated when first referenced and have their fields copied when taken
+ * from the work list, so the graph is walked once and without recursion.
+ *
+ * @author arno
+ */
+final class CloneOperation implements CloneContext {
+    private final ClassLoader targetLoader;
+    private final ClassResolver targetResolver;
+    private final CloningDecisionStrategy decider;
+    private final CloneInstantiater instantiater;
+
+    private final IdentityTable clones = new IdentityTable();
+    private final List pending = new ArrayList();
+    private final Map sameClassCopiers = new HashMap();
+    private final Map otherClassCopiers = new HashMap();
+
+    CloneOperation(ClassLoader targetLoader, CloningDecisionStrategy decider, CloneInstantiater instantiater) {
+        this.targetLoader = targetLoader;
+        this.targetResolver = new ClassResolver(targetLoader);
+        this.decider = decider;
+        this.instantiater = instantiater;
+    }
+
+    Object cloneGraphOf(Object original) throws Exception {
+        Object clone = cloneOf(original);
+        while (!pending.isEmpty()) {
+            Object nextClone = pending.remove(pending.size() - 1);
+            Object nextOriginal = pending.remove(pending.size() - 1);
+            copy(nextOriginal, nextClone);
+        }
+        return clone;
+    }
+
+    public Object cloneOf(Object original) throws Exception {
+        if (original == null)
+            return null;
+        Object clone = clones.get(original);
+        if (clone != null)
+            return clone;
+        clone = CloneGraphOperation.shallowCloneOf(original, decider, instantiater, targetResolver);
+        clones.put(original, clone);
+        if (needsReferencesSet(original, clone)) {
+            pending.add(original);
+            pending.add(clone);
+        }
+        return clone;
+    }
+
+    private boolean needsReferencesSet(Object original, Object clone) throws ClassNotFoundException {
+        Class type = original.getClass();
+        /* shallow clones of primitive arrays are complete copies */
+        if (type.isArray() && type.getComponentType().isPrimitive())
+            return false;
+        if (clone != original && (!type.isArray() || clone.getClass().getComponentType() != type.getComponentType()))
+            return true;
+        return decider.shouldCloneObjectReferences(original, targetLoader);
+    }
+
+    private void copy(Object original, Object clone) throws Exception {
+        Class originalClass = original.getClass();
+        if (originalClass.isArray())
+            copyArray(original, clone);
+        else if (clone == original)
+            patchInPlace(original);
+        else
+            copierFor(originalClass, clone.getClass()).copy(original, clone, this);
+    }
+
+    /* objects that are not cloned only have references replaced, through Reflection so that field types are checked */
+    private void patchInPlace(Object original) throws Exception {
+        Field[] fields = FieldCache.getReferenceFieldsOf(original.getClass());
+        for (int i = 0; i < fields.length; i++) {
+            Object value = fields[i].get(original);
+            Object clone = cloneOf(value);
+            if (clone == value)
+                continue;
+            try {
+                fields[i].set(original, clone);
+            } catch (IllegalArgumentException e) {
+                throw new TransloaderException("Unable to set value for '" + fields[i].getName() + "' to '" + clone + "' on '" + original + "'.", e);
+            }
+        }
+    }
+
+    private void copyArray(Object original, Object clone) throws Exception {
+        Object[] originalElements = (Object[]) original;
+        Object[] cloneElements = (Object[]) clone;
+        for (int i = 0; i < originalElements.length; i++) {
+            Object element = cloneOf(originalElements[i]);
+            if (cloneElements[i] != element)
+                cloneElements[i] = element;
+        }
+    }
+
+    private TypedCopier copierFor(Class originalClass, Class cloneClass) {
+        Map copiers = originalClass == cloneClass ? sameClassCopiers : otherClassCopiers;
+        TypedCopier copier = (TypedCopier) copiers.get(originalClass);
+        if (copier == null) {
+            copier = new TypedCopier(FieldCopiers.copierFor(originalClass, cloneClass), FieldLayout.cloneTypesOf(originalClass, cloneClass));
+            copiers.put(originalClass, copier);
+        }
+        return copier;
+    }
+
+    /* a shared copier together with the field types of one clone Class, held only for this operation so as not to pin them */
+    private static final class TypedCopier {
+        private final FieldCopier copier;
+        private final Class[] types;
+
+        TypedCopier(FieldCopier copier, Class[] types) {
+            this.copier = copier;
+            this.types = types;
+        }
+
+        void copy(Object original, Object clone, CloneContext context) throws Exception {
+            copier.copy(original, clone, context, types);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.clone.bytecode;
+
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import net.datenwerke.transloader.except.TransloaderException;
+
+/**
+ * Generates {@link FieldCopier}s with straight-line code for a given {@link FieldLayout} using Javassist. Copiers are
+ * defined in the <code>ClassLoader</code> of this package, never in that of the copied <code>Class</code>es, and are
+ * shared by all layouts with the same key so that their number is bounded by the number of distinct shapes rather than
+ * by the number of <code>ClassLoader</code>s.
+ *
+ * @author arno
+ */
+final class CopierGenerator {
+    private static final Map GENERATED = new HashMap();
+    private static final String CONTEXT = CloneContext.class.getName();
+    private static final String COPIER = FieldCopier.class.getName();
+
+    private static ClassPool pool;
+    private static int counter;
+
+    private CopierGenerator() {}
+
+    static synchronized FieldCopier copierFor(FieldLayout layout) {
+        FieldCopier copier = (FieldCopier) GENERATED.get(layout.getKey());
+        if (copier == null) {
+            copier = generate(layout);
+            GENERATED.put(layout.getKey(), copier);
+        }
+        return copier;
+    }
+
+    private static FieldCopier generate(FieldLayout layout) {
+        try {
+            ClassPool pool = getPool();
+            CtClass copierClass = pool.makeClass(COPIER + "$Generated" + (++counter));
+            copierClass.setSuperclass(pool.get(COPIER));
+            copierClass.addMethod(CtNewMethod.make(sourceOf(layout), copierClass));
+            Class type = copierClass.toClass(FieldCopier.class.getClassLoader(), FieldCopier.class.getProtectionDomain());
+            copierClass.detach();
+            return (FieldCopier) type.newInstance();
+        } catch (Exception e) {
+            throw new TransloaderException("Unable to generate field copier for layout '" + layout.getKey() + "'.", e);
+        }
+    }
+
+    private static ClassPool getPool() {
+        if (pool == null) {
+            pool = new ClassPool(true);
+            pool.insertClassPath(new LoaderClassPath(FieldCopier.class.getClassLoader()));
+        }
+        return pool;
+    }
+
+    private static String sourceOf(FieldLayout layout) {
+        StringBuffer source = new StringBuffer();
+        source.append("public void copy(Object original, Object clone, ").append(CONTEXT).append(" context, Class[] types) throws Exception {\n");
+        for (int i = 0; i < layout.size(); i++) {
+            String to = layout.cloneOffsetAt(i) + "L";
+            String from = layout.originalOffsetAt(i) + "L";
+            String type = accessorOf(layout.typeAt(i));
+            source.append("UNSAFE.put").append(type).append("(clone, ").append(to).append(", ");
+            if (layout.typeAt(i) == FieldLayout.OBJECT)
+                source.append(COPIER).append(".checked(context.cloneOf(UNSAFE.getObject(original, ").append(from).append(")), types[").append(i).append("])");
+            else
+                source.append("UNSAFE.get").append(type).append("(original, ").append(from).append(")");
+            source.append(");\n");
+        }
+        return source.append("}").toString();
+    }
+
+    private static String accessorOf(char type) {
+        switch (type) {
+            case 'Z': return "Boolean";
+            case 'B': return "Byte";
+            case 'C': return "Char";
+            case 'S': return "Short";
+            case 'I': return "Int";
+            case 'J': return "Long";
+            case 'F': return "Float";
+            case 'D': return "Double";
+            default: return "Object";
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.clone.bytecode;
+
+
+import java.lang.reflect.Field;
+
+import net.datenwerke.transloader.except.TransloaderException;
+
+import sun.misc.Unsafe;
+
+/**
+ * Copies the instance fields of an original object to its shallow clone, remapping the objects it references through
+ * a {@link CloneContext}. Subclasses are either interpreting a {@link FieldLayout} or are generated per layout by
+ * {@link CopierGenerator}. As copiers are shared by all pairs of <code>Class</code>es with the same layout, the types
+ * of the fields of the clone are passed in and every reference is checked against them before it is written.
+ * <p>
+ * Fields are read and written through <code>sun.misc.Unsafe</code>, which ignores the <code>final</code> modifier and
+ * performs no type checks (see {@link BytecodeCloningStrategy} for why this internal API is accepted here).
+ * </p>
+ *
+ * @author arno
+ */
+abstract class FieldCopier {
+    static final Unsafe UNSAFE;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe) field.get(null);
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Copies all instance fields from <code>original</code> to <code>clone</code>, which may be the same object.
+     *
+     * @param original the object to copy from
+     * @param clone    the object to copy to
+     * @param context  maps referenced objects to their clones
+     * @param types    the types of the fields of <code>clone</code> by their index in the layout (see
+     *                 {@link FieldLayout#cloneTypesOf(Class, Class)})
+     * @throws Exception can throw any <code>Exception</code> thrown by the <code>context</code>
+     */
+    public abstract void copy(Object original, Object clone, CloneContext context, Class[] types) throws Exception;
+
+    /**
+     * Ensures that a value may be written to a field of the given type, which <code>Unsafe</code> does not check.
+     *
+     * @param value the value to write (can be <code>null</code>)
+     * @param type  the type of the field or <code>null</code> if the field accepts any value
+     * @return <code>value</code>
+     */
+    static Object checked(Object value, Class type) {
+        if (type != null && value != null && !type.isInstance(value))
+            throw new TransloaderException("Unable to set value of type '" + value.getClass().getName() + "' to a field of type '" + type.getName() + "'.",
+                    new ClassCastException(value.getClass().getName() + " (in ClassLoader '" + value.getClass().getClassLoader()
+                            + "') cannot be cast to " + type.getName() + " (in ClassLoader '" + type.getClassLoader() + "')"));
+        return value;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.clone.bytecode;
+
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Caches the {@link FieldCopier} for each pair of original and clone <code>Class</code>. <code>Class</code>es are
+ * held weakly; copiers are shared by all pairs with the same {@link FieldLayout}.
+ *
+ * @author arno
+ */
+final class FieldCopiers {
+    private static final Map BY_CLASS = Collections.synchronizedMap(new WeakHashMap());
+    private static final Map BY_LAYOUT = new HashMap();
+
+    private FieldCopiers() {}
+
+    static FieldCopier copierFor(Class originalClass, Class cloneClass) {
+        Map byCloneClass;
+        synchronized (BY_CLASS) {
+            byCloneClass = (Map) BY_CLASS.get(originalClass);
+            if (byCloneClass == null) {
+                byCloneClass = Collections.synchronizedMap(new WeakHashMap(2));
+                BY_CLASS.put(originalClass, byCloneClass);
+            }
+        }
+        FieldCopier copier = (FieldCopier) byCloneClass.get(cloneClass);
+        if (copier == null) {
+            copier = copierFor(new FieldLayout(originalClass, cloneClass));
+            byCloneClass.put(cloneClass, copier);
+        }
+        return copier;
+    }
+
+    private static FieldCopier copierFor(FieldLayout layout) {
+        synchronized (BY_LAYOUT) {
+            FieldCopier copier = (FieldCopier) BY_LAYOUT.get(layout.getKey());
+            if (copier == null) {
+                copier = new LayoutCopier(layout);
+                BY_LAYOUT.put(layout.getKey(), copier);
+            }
+            return copier;
+        }
+    }
+}
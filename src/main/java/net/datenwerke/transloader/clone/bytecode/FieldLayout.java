@@ -0,0 +1,150 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.clone.bytecode;
+
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.datenwerke.transloader.except.Assert;
+import net.datenwerke.transloader.except.TransloaderException;
+import net.datenwerke.transloader.reference.field.FieldCache;
+
+/**
+ * Describes how the instance fields of one <code>Class</code> map onto the fields of the same named
+ * <code>Class</code>, possibly loaded through another <code>ClassLoader</code>, by their type codes and memory
+ * offsets. As offsets do not depend on the <code>ClassLoader</code>, layouts and the copiers generated for them are
+ * shared by all pairs of <code>Class</code>es with the same shape.
+ *
+ * @author arno
+ */
+final class FieldLayout {
+    static final char OBJECT = 'L';
+
+    private final char[] types;
+    private final long[] originalOffsets;
+    private final long[] cloneOffsets;
+    private final String key;
+
+    FieldLayout(Class originalClass, Class cloneClass) {
+        Assert.areNotNull(originalClass, cloneClass);
+        Field[] originalFields = FieldCache.getInstanceFieldsOf(originalClass);
+        Field[] cloneFields = cloneFieldsOf(originalFields, cloneClass);
+        types = new char[originalFields.length];
+        originalOffsets = new long[originalFields.length];
+        cloneOffsets = new long[originalFields.length];
+        StringBuffer key = new StringBuffer();
+        for (int i = 0; i < originalFields.length; i++) {
+            types[i] = typeOf(originalFields[i].getType());
+            originalOffsets[i] = FieldCopier.UNSAFE.objectFieldOffset(originalFields[i]);
+            cloneOffsets[i] = FieldCopier.UNSAFE.objectFieldOffset(cloneFields[i]);
+            key.append(types[i]).append(originalOffsets[i]).append(':').append(cloneOffsets[i]).append(';');
+        }
+        this.key = key.toString();
+    }
+
+    /**
+     * Retrieves the types against which the references written by a {@link FieldCopier} for the given pair of
+     * <code>Class</code>es have to be checked. These are not part of the layout as they are specific to the
+     * <code>ClassLoader</code> of the clone.
+     *
+     * @param originalClass the <code>Class</code> of the original
+     * @param cloneClass    the <code>Class</code> of the clone
+     * @return the types of the fields of <code>cloneClass</code> by their index in the layout, <code>null</code> for
+     *         fields of primitive type or of type <code>Object</code>
+     */
+    static Class[] cloneTypesOf(Class originalClass, Class cloneClass) {
+        Assert.areNotNull(originalClass, cloneClass);
+        Field[] cloneFields = cloneFieldsOf(FieldCache.getInstanceFieldsOf(originalClass), cloneClass);
+        Class[] types = new Class[cloneFields.length];
+        for (int i = 0; i < cloneFields.length; i++) {
+            Class type = cloneFields[i].getType();
+            if (!type.isPrimitive() && type != Object.class)
+                types[i] = type;
+        }
+        return types;
+    }
+
+    private static Field[] cloneFieldsOf(Field[] originalFields, Class cloneClass) {
+        Map byName = fieldsByName(cloneClass);
+        Field[] cloneFields = new Field[originalFields.length];
+        for (int i = 0; i < originalFields.length; i++) {
+            Field originalField = originalFields[i];
+            Field cloneField = (Field) byName.get(nameOf(originalField));
+            if (cloneField == null || cloneField.getType().isPrimitive() != originalField.getType().isPrimitive()
+                    || (cloneField.getType().isPrimitive() && cloneField.getType() != originalField.getType()))
+                throw new TransloaderException("Unable to map field '" + nameOf(originalField) + "' onto '" + cloneClass + "'.",
+                        new NoSuchFieldException("No field matching '" + nameOf(originalField) + "' in ClassLoader '" + cloneClass.getClassLoader() + "'."));
+            cloneFields[i] = cloneField;
+        }
+        return cloneFields;
+    }
+
+    private static Map fieldsByName(Class type) {
+        Field[] fields = FieldCache.getInstanceFieldsOf(type);
+        Map byName = new HashMap(fields.length * 2);
+        for (int i = 0; i < fields.length; i++)
+            byName.put(nameOf(fields[i]), fields[i]);
+        return byName;
+    }
+
+    private static String nameOf(Field field) {
+        return field.getDeclaringClass().getName() + '#' + field.getName();
+    }
+
+    private static char typeOf(Class type) {
+        if (type == boolean.class) return 'Z';
+        if (type == byte.class) return 'B';
+        if (type == char.class) return 'C';
+        if (type == short.class) return 'S';
+        if (type == int.class) return 'I';
+        if (type == long.class) return 'J';
+        if (type == float.class) return 'F';
+        if (type == double.class) return 'D';
+        return OBJECT;
+    }
+
+    int size() {
+        return types.length;
+    }
+
+    char typeAt(int index) {
+        return types[index];
+    }
+
+    long originalOffsetAt(int index) {
+        return originalOffsets[index];
+    }
+
+    long cloneOffsetAt(int index) {
+        return cloneOffsets[index];
+    }
+
+    /**
+     * Identifies the shape of this layout; equal keys mean interchangeable copiers.
+     *
+     * @return the key of this layout
+     */
+    String getKey() {
+        return key;
+    }
+}
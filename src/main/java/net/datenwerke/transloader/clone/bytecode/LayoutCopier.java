@@ -0,0 +1,73 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.clone.bytecode;
+
+
+/**
+ * Copies fields by interpreting a {@link FieldLayout} until the pair of <code>Class</code>es it serves has been copied
+ * often enough to be worth a generated copier, to which it then delegates.
+ *
+ * @author arno
+ */
+final class LayoutCopier extends FieldCopier {
+    /**
+     * The number of copies after which a <code>Class</code> is considered hot.
+     */
+    static final int HOT_THRESHOLD = 128;
+
+    private final FieldLayout layout;
+    private volatile FieldCopier generated;
+    private int copies;
+
+    LayoutCopier(FieldLayout layout) {
+        this.layout = layout;
+    }
+
+    public void copy(Object original, Object clone, CloneContext context, Class[] types) throws Exception {
+        FieldCopier delegate = generated;
+        if (delegate != null) {
+            delegate.copy(original, clone, context, types);
+            return;
+        }
+        /* racy on purpose, a lost update only postpones the generation */
+        if (++copies == HOT_THRESHOLD)
+            generated = CopierGenerator.copierFor(layout);
+        interpret(original, clone, context, types);
+    }
+
+    private void interpret(Object original, Object clone, CloneContext context, Class[] types) throws Exception {
+        for (int i = 0; i < layout.size(); i++) {
+            long from = layout.originalOffsetAt(i);
+            long to = layout.cloneOffsetAt(i);
+            switch (layout.typeAt(i)) {
+                case 'Z': UNSAFE.putBoolean(clone, to, UNSAFE.getBoolean(original, from)); break;
+                case 'B': UNSAFE.putByte(clone, to, UNSAFE.getByte(original, from)); break;
+                case 'C': UNSAFE.putChar(clone, to, UNSAFE.getChar(original, from)); break;
+                case 'S': UNSAFE.putShort(clone, to, UNSAFE.getShort(original, from)); break;
+                case 'I': UNSAFE.putInt(clone, to, UNSAFE.getInt(original, from)); break;
+                case 'J': UNSAFE.putLong(clone, to, UNSAFE.getLong(original, from)); break;
+                case 'F': UNSAFE.putFloat(clone, to, UNSAFE.getFloat(original, from)); break;
+                case 'D': UNSAFE.putDouble(clone, to, UNSAFE.getDouble(original, from)); break;
+                default: UNSAFE.putObject(clone, to, checked(context.cloneOf(UNSAFE.getObject(original, from)), types[i]));
+            }
+        }
+    }
+}
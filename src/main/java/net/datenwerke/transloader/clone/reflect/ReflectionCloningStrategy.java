@@ -21,8 +21,6 @@
 package net.datenwerke.transloader.clone.reflect;
 
 
-import java.util.Map;
-
 import net.datenwerke.transloader.clone.CloningStrategy;
 import net.datenwerke.transloader.clone.reflect.internal.InternalCloner;
 import net.datenwerke.transloader.except.Assert;
@@ -55,9 +53,6 @@ public final class ReflectionCloningStrategy implements CloningStrategy {
      */
     public Object cloneObjectUsing(final ClassLoader targetLoader, final Object original) throws Exception {
         Assert.areNotNull(targetLoader, original);
-        Map references = cloner.mapReferencesFrom(original);
-        Map clones = cloner.mapClonesOf(references.keySet(), targetLoader);
-        cloner.setClonesIn(references, clones);
-        return clones.get(original);
+        return cloner.cloneGraphOf(original, targetLoader);
     }
 }
@@ -0,0 +1,130 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.clone.reflect.decide;
+
+
+import java.lang.annotation.Annotation;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+import net.datenwerke.transloader.except.Assert;
+
+/**
+ * The registry of immutable types whose instances, when shared among <code>ClassLoader</code>s, can be passed through
+ * by {@link MinimalCloningDecisionStrategy} without considering the objects they reference. Besides the
+ * <code>Class</code>es named explicitly it covers all enums and all <code>Class</code>es annotated with
+ * {@link Immutable}.
+ * <p>
+ * Types are matched by exact name, so subclasses of a registered <code>Class</code> are not considered immutable.
+ * <code>java.time</code> types are registered by name as they are not available on all supported platforms.
+ * </p>
+ *
+ * @author arno
+ */
+public final class ImmutableTypes {
+    private static final String[] DEFAULT_NAMES = {
+            String.class.getName(), BigInteger.class.getName(), BigDecimal.class.getName(),
+            UUID.class.getName(), Class.class.getName(), Locale.class.getName(), URI.class.getName(),
+            "java.time.Duration", "java.time.Instant", "java.time.LocalDate", "java.time.LocalDateTime",
+            "java.time.LocalTime", "java.time.MonthDay", "java.time.OffsetDateTime", "java.time.OffsetTime",
+            "java.time.Period", "java.time.Year", "java.time.YearMonth", "java.time.ZonedDateTime",
+            "java.time.ZoneOffset", "java.time.ZoneRegion"
+    };
+
+    /**
+     * The registry of the default immutable types.
+     */
+    public static final ImmutableTypes DEFAULT = new ImmutableTypes(new String[0]);
+
+    private static final String ANNOTATION_NAME = Immutable.class.getName();
+    private static final Map ANNOTATED = Collections.synchronizedMap(new WeakHashMap());
+
+    private final Set names;
+
+    /**
+     * Constructs a registry of the default immutable types and the given additional ones.
+     *
+     * @param classNames the names of additional immutable <code>Class</code>es
+     */
+    public ImmutableTypes(String[] classNames) {
+        this(Arrays.asList((Object[]) Assert.isNotNull(classNames)));
+    }
+
+    /**
+     * Constructs a registry of the default immutable types and the given additional ones.
+     *
+     * @param classNames the names of additional immutable <code>Class</code>es
+     */
+    public ImmutableTypes(Collection classNames) {
+        Assert.isNotNull(classNames);
+        Set names = new HashSet(Arrays.asList(DEFAULT_NAMES));
+        names.addAll(classNames);
+        this.names = Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Indicates whether or not instances of the given <code>Class</code> are known to be immutable.
+     *
+     * @param type the <code>Class</code> to check
+     * @return <code>true</code> if <code>type</code> is registered by name, an enum or annotated with
+     *         {@link Immutable}
+     */
+    public boolean isImmutable(Class type) {
+        Assert.isNotNull(type);
+        return names.contains(type.getName()) || Enum.class.isAssignableFrom(type) || isAnnotated(type);
+    }
+
+    /**
+     * Retrieves the names of all <code>Class</code>es registered explicitly.
+     *
+     * @return an unmodifiable <code>Set</code> of class names
+     */
+    public Set getClassNames() {
+        return names;
+    }
+
+    private static boolean isAnnotated(Class type) {
+        Boolean annotated = (Boolean) ANNOTATED.get(type);
+        if (annotated == null) {
+            annotated = Boolean.valueOf(hasImmutableAnnotation(type));
+            ANNOTATED.put(type, annotated);
+        }
+        return annotated.booleanValue();
+    }
+
+    private static boolean hasImmutableAnnotation(Class type) {
+        Annotation[] annotations = type.getDeclaredAnnotations();
+        for (int i = 0; i < annotations.length; i++)
+            if (ANNOTATION_NAME.equals(annotations[i].annotationType().getName()))
+                return true;
+        return false;
+    }
+}
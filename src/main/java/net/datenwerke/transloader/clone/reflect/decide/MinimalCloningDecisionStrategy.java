@@ -21,12 +21,11 @@
 package net.datenwerke.transloader.clone.reflect.decide;
 
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.List;
 
-import net.datenwerke.transloader.ClassWrapper;
+import net.datenwerke.transloader.ClassResolver;
 import net.datenwerke.transloader.except.Assert;
 import net.datenwerke.transloader.primitive.Wrapper;
 
@@ -36,15 +35,32 @@ import net.datenwerke.transloader.primitive.Wrapper;
  *
  * @author Jeremy Wales
  */
-public final class MinimalCloningDecisionStrategy implements CloningDecisionStrategy {
+public final class MinimalCloningDecisionStrategy implements ResolvingCloningDecisionStrategy {
     /**
      * The list of primitive wrapper <code>Class</code>es.
      */
     public static final List PRIMITIVE_WRAPPERS = Arrays.asList(Wrapper.LIST);
 
     // TODO test BigInteger and BigDecimal
-    // TODO make the list of non-cloned Classes injectable
-    private static final List KNOWN_SHARED_IMMUTABLES = Arrays.asList(new Class[]{String.class, BigInteger.class, BigDecimal.class});
+    private final ImmutableTypes immutables;
+
+    /**
+     * Constructs a <code>MinimalCloningDecisionStrategy</code> passing through the {@link ImmutableTypes#DEFAULT}
+     * immutable types.
+     */
+    public MinimalCloningDecisionStrategy() {
+        this(ImmutableTypes.DEFAULT);
+    }
+
+    /**
+     * Constructs a <code>MinimalCloningDecisionStrategy</code> passing through the given immutable types.
+     *
+     * @param immutables the registry of types whose instances' references need not be considered for cloning
+     */
+    public MinimalCloningDecisionStrategy(ImmutableTypes immutables) {
+        Assert.isNotNull(immutables);
+        this.immutables = immutables;
+    }
 
     /**
      * Decides that the given object should be shallow copied if its <code>Class</code> would be different when loaded
@@ -57,29 +73,55 @@ public final class MinimalCloningDecisionStrategy implements CloningDecisionStra
      */
     public boolean shouldCloneObjectItself(Object original, ClassLoader targetClassLoader) {
         Assert.areNotNull(original, targetClassLoader);
-        return !isSameInClassLoader(original.getClass(), targetClassLoader);
+        return !isSameInClassLoader(original.getClass(), new ClassResolver(targetClassLoader));
     }
 
-    private boolean isSameInClassLoader(Class originalClass, ClassLoader targetClassLoader) {
-        return originalClass.equals(ClassWrapper.getClassFrom(targetClassLoader, originalClass.getName()));
+    /**
+     * Decides as {@link #shouldCloneObjectItself(Object, ClassLoader)} but loads the <code>Class</code> through the given
+     * {@link ClassResolver}.
+     *
+     * @param original       the candidate for cloning
+     * @param targetResolver loads <code>Class</code>es from the <code>ClassLoader</code> it may be cloned with
+     * @return <code>true</code> if <code>original</code>'s <code>Class</code> would be different when loaded
+     *         through the <code>ClassLoader</code> of <code>targetResolver</code>
+     */
+    public boolean shouldCloneObjectItself(Object original, ClassResolver targetResolver) {
+        Assert.areNotNull(original, targetResolver);
+        return !isSameInClassLoader(original.getClass(), targetResolver);
+    }
+
+    private boolean isSameInClassLoader(Class originalClass, ClassResolver targetResolver) {
+        return originalClass.equals(targetResolver.getClassFrom(originalClass.getName()));
     }
 
     /**
      * Decides to not even consider cloning the objects referenced by the given object if it is known to an immutable
-     * object shared of a type shared among all <code>ClassLoader</code>s e.g. primitive wrappers and
-     * <code>String</code>s.
+     * object shared of a type shared among all <code>ClassLoader</code>s e.g. primitive wrappers,
+     * <code>String</code>s, enums and any other type registered with the {@link ImmutableTypes} in use.
      *
      * @param original          the candidate for cloning
      * @param targetClassLoader the <code>ClassLoader</code> it may be cloned with; ignored in this implementation
      * @return <code>true</code> unless <code>original</code>'s <code>Class</code> makes it a known immutable of
-     *         type shared among all <code>ClassLoader</code>s
+     *         type shared among all <code>ClassLoader</code>s or an array of primitives or of such immutables
+     *         whose <code>Class</code> is final
      */
     public boolean shouldCloneObjectReferences(Object original, ClassLoader targetClassLoader) {
         Assert.areNotNull(original, targetClassLoader);
-        return !isEffectivelyPrimitive(original.getClass());
+        Class originalClass = original.getClass();
+        if (originalClass.isArray())
+            return !isEffectivelyPrimitiveArray(originalClass);
+        return !isEffectivelyPrimitive(originalClass);
+    }
+
+    private boolean isEffectivelyPrimitiveArray(Class arrayClass) {
+        Class componentType = arrayClass.getComponentType();
+        if (componentType.isPrimitive())
+            return true;
+        // elements of a non-final component type may be instances of subclasses that need cloning
+        return Modifier.isFinal(componentType.getModifiers()) && isEffectivelyPrimitive(componentType);
     }
 
     private boolean isEffectivelyPrimitive(Class originalClass) {
-        return PRIMITIVE_WRAPPERS.contains(originalClass) || KNOWN_SHARED_IMMUTABLES.contains(originalClass);
+        return PRIMITIVE_WRAPPERS.contains(originalClass) || immutables.isImmutable(originalClass);
 	}
 }
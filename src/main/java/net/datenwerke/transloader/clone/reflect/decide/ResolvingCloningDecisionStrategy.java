@@ -0,0 +1,43 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+
+package net.datenwerke.transloader.clone.reflect.decide;
+
+import net.datenwerke.transloader.ClassResolver;
+
+/**
+ * A {@link CloningDecisionStrategy} that loads <code>Class</code>es through the {@link ClassResolver} of the cloning
+ * operation it is used in, rather than asking the target <code>ClassLoader</code> for every object.
+ *
+ * @author arno
+ */
+public interface ResolvingCloningDecisionStrategy extends CloningDecisionStrategy {
+    /**
+     * Determines whether the given object (not considering any objects it references) should be shallow copied.
+     *
+     * @param original       the candidate for cloning
+     * @param targetResolver loads <code>Class</code>es from the <code>ClassLoader</code> with which it may be cloned
+     * @return <code>true</code> if the <code>original</code> should be shallow cloned
+     * @throws ClassNotFoundException if the <code>Class</code> of the <code>original</code> cannot be found
+     * @see #shouldCloneObjectItself(Object, ClassLoader)
+     */
+    boolean shouldCloneObjectItself(Object original, ClassResolver targetResolver) throws ClassNotFoundException;
+}
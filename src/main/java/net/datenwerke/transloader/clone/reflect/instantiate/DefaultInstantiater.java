@@ -23,13 +23,17 @@ package net.datenwerke.transloader.clone.reflect.instantiate;
 
 import java.lang.reflect.Array;
 
-import net.datenwerke.transloader.ClassWrapper;
+import net.datenwerke.transloader.ClassResolver;
 import net.datenwerke.transloader.except.Assert;
 
 /**
+ * Instantiates shallow clones of objects through an {@link InstantiationStrategy} and of arrays directly. Arrays whose
+ * component type is the same in the target <code>ClassLoader</code> are returned with all elements bulk copied, so
+ * the clone of a primitive array is complete and only elements needing a clone of their own must be replaced.
+ *
  * @author jeremywales
  */
-public class DefaultInstantiater implements CloneInstantiater {
+public class DefaultInstantiater implements ResolvingCloneInstantiater {
     private final InstantiationStrategy strategy;
 
     public DefaultInstantiater(InstantiationStrategy strategy) {
@@ -39,21 +43,31 @@ public class DefaultInstantiater implements CloneInstantiater {
 
     public Object instantiateShallowCloneOf(Object original, ClassLoader targetLoader) throws Exception {
         Assert.areNotNull(original, targetLoader);
+        return instantiateShallowCloneOf(original, new ClassResolver(targetLoader));
+    }
+
+    public Object instantiateShallowCloneOf(Object original, ClassResolver targetResolver) throws Exception {
+        Assert.areNotNull(original, targetResolver);
         return original.getClass().isArray() ?
-                instantiateArray(original, targetLoader) :
-                instantiateObject(original, targetLoader);
+                instantiateArray(original, targetResolver) :
+                instantiateObject(original, targetResolver);
     }
 
-    private Object instantiateArray(Object original, ClassLoader targetLoader) {
+    private Object instantiateArray(Object original, ClassResolver targetResolver) {
         Class componentType = original.getClass().getComponentType();
-        Class cloneComponentType = ClassWrapper.getClassFrom(targetLoader, componentType.getName());
+        Class cloneComponentType = componentType.isPrimitive() ?
+                componentType :
+                targetResolver.getClassFrom(componentType.getName());
         int length = Array.getLength(original);
-        return Array.newInstance(cloneComponentType, length);
+        Object clone = Array.newInstance(cloneComponentType, length);
+        if (cloneComponentType == componentType)
+            System.arraycopy(original, 0, clone, 0, length);
+        return clone;
     }
 
-    private Object instantiateObject(Object original, ClassLoader targetLoader) throws Exception {
+    private Object instantiateObject(Object original, ClassResolver targetResolver) throws Exception {
         String className = original.getClass().getName();
-        Class cloneClass = ClassWrapper.getClassFrom(targetLoader, className);
+        Class cloneClass = targetResolver.getClassFrom(className);
         return strategy.newInstanceOf(cloneClass);
     }
 }
@@ -0,0 +1,144 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.clone.reflect.internal;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.datenwerke.transloader.ClassResolver;
+import net.datenwerke.transloader.clone.reflect.decide.CloningDecisionStrategy;
+import net.datenwerke.transloader.clone.reflect.decide.ResolvingCloningDecisionStrategy;
+import net.datenwerke.transloader.clone.reflect.instantiate.CloneInstantiater;
+import net.datenwerke.transloader.clone.reflect.instantiate.ResolvingCloneInstantiater;
+import net.datenwerke.transloader.except.Assert;
+import net.datenwerke.transloader.reference.Reference;
+import net.datenwerke.transloader.reference.ReferenceDescription;
+import net.datenwerke.transloader.reference.ReferenceReflecter;
+
+/**
+ * Clones an object graph in a single pass. Each object is instantiated the first time it is referenced and has its
+ * references set when it is taken from an explicit work list, so arbitrarily deep graphs do not overflow the stack.
+ *
+ * @author arno
+ */
+public final class CloneGraphOperation {
+    private final ClassLoader targetLoader;
+    private final ClassResolver targetResolver;
+    private final CloningDecisionStrategy decider;
+    private final CloneInstantiater instantiater;
+    private final ReferenceReflecter reflecter;
+
+    private final IdentityTable clones = new IdentityTable();
+    private final List pending = new ArrayList();
+    private final Object clone;
+
+    public CloneGraphOperation(Object original, ClassLoader targetLoader, CloningDecisionStrategy decider, CloneInstantiater instantiater, ReferenceReflecter reflecter) throws Exception {
+        Assert.areNotNull(original, targetLoader, decider, instantiater, reflecter);
+        this.targetLoader = targetLoader;
+        this.targetResolver = new ClassResolver(targetLoader);
+        this.decider = decider;
+        this.instantiater = instantiater;
+        this.reflecter = reflecter;
+        clone = cloneOf(original);
+        while (!pending.isEmpty()) {
+            Object nextClone = pending.remove(pending.size() - 1);
+            Object nextOriginal = pending.remove(pending.size() - 1);
+            setReferencesIn(nextOriginal, nextClone);
+        }
+    }
+
+    private Object cloneOf(Object original) throws Exception {
+        Object clone = clones.get(original);
+        if (clone != null)
+            return clone;
+        clone = shallowCloneOf(original, decider, instantiater, targetResolver);
+        clones.put(original, clone);
+        if (needsReferencesSet(original, clone, decider, targetLoader)) {
+            pending.add(original);
+            pending.add(clone);
+        }
+        return clone;
+    }
+
+    /**
+     * Makes the shallow clone of the given object if the decider asks for one. Deciders and instantiaters that can use
+     * the {@link ClassResolver} of the operation get it, so each <code>Class</code> is loaded only once per operation.
+     *
+     * @param original       the object to clone
+     * @param decider        decides whether <code>original</code> is cloned
+     * @param instantiater   instantiates the clone
+     * @param targetResolver loads <code>Class</code>es for the current operation
+     * @return the shallow clone of <code>original</code> or <code>original</code> itself
+     * @throws Exception can throw any <code>Exception</code> thrown by the decider or instantiater
+     */
+    public static Object shallowCloneOf(Object original, CloningDecisionStrategy decider, CloneInstantiater instantiater, ClassResolver targetResolver) throws Exception {
+        boolean shouldClone = decider instanceof ResolvingCloningDecisionStrategy ?
+                ((ResolvingCloningDecisionStrategy) decider).shouldCloneObjectItself(original, targetResolver) :
+                decider.shouldCloneObjectItself(original, targetResolver.getClassLoader());
+        if (!shouldClone)
+            return original;
+        return instantiater instanceof ResolvingCloneInstantiater ?
+                ((ResolvingCloneInstantiater) instantiater).instantiateShallowCloneOf(original, targetResolver) :
+                instantiater.instantiateShallowCloneOf(original, targetResolver.getClassLoader());
+    }
+
+    static boolean needsReferencesSet(Object original, Object clone, CloningDecisionStrategy decider, ClassLoader targetLoader) throws ClassNotFoundException {
+        Class type = original.getClass();
+        /* shallow clones of primitive arrays are complete copies */
+        if (type.isArray() && type.getComponentType().isPrimitive())
+            return false;
+        if (clone != original && (!type.isArray() || clone.getClass().getComponentType() != type.getComponentType()))
+            return true;
+        return decider.shouldCloneObjectReferences(original, targetLoader);
+    }
+
+    private void setReferencesIn(Object original, Object clone) throws Exception {
+        if (original instanceof Object[]) {
+            setElementsIn((Object[]) original, (Object[]) clone);
+            return;
+        }
+        Reference[] references = reflecter.reflectReferencesFrom(original);
+        for (int i = 0; i < references.length; i++) {
+            Object value = references[i].getValue();
+            if (value == Reference.NULL)
+                continue;
+            ReferenceDescription description = references[i].getDescription();
+            Object cloneValue = description.isOfPrimitiveType() ? value : cloneOf(value);
+            if (clone != original || cloneValue != value)
+                description.setValueIn(clone, cloneValue);
+        }
+    }
+
+    private void setElementsIn(Object[] original, Object[] clone) throws Exception {
+        for (int i = 0; i < original.length; i++) {
+            if (original[i] == null)
+                continue;
+            Object cloneValue = cloneOf(original[i]);
+            if (clone[i] != cloneValue)
+                clone[i] = cloneValue;
+        }
+    }
+
+    public Object getClone() {
+        return clone;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.clone.reflect.internal;
+
+
+/**
+ * An identity map from originals to their clones that can be shared between threads. Mappings are spread over a fixed
+ * number of {@link IdentityTable}s by identity hash code, each guarded by its own lock. Entries cannot be removed.
+ *
+ * @author arno
+ */
+public final class ConcurrentIdentityTable {
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private final IdentityTable[] segments = new IdentityTable[SEGMENTS];
+
+    public ConcurrentIdentityTable() {
+        for (int i = 0; i < segments.length; i++)
+            segments[i] = new IdentityTable();
+    }
+
+    /**
+     * Retrieves the value mapped to the given key.
+     *
+     * @param key the key to look up
+     * @return the value mapped to <code>key</code> or <code>null</code> if there is none
+     */
+    public Object get(Object key) {
+        IdentityTable segment = segmentOf(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    /**
+     * Maps the given key to the given value unless it is already mapped.
+     *
+     * @param key   the key, compared by identity
+     * @param value the value (must not be <code>null</code>)
+     * @return the value already mapped to <code>key</code> or <code>null</code> if <code>value</code> was mapped
+     */
+    public Object putIfAbsent(Object key, Object value) {
+        IdentityTable segment = segmentOf(key);
+        synchronized (segment) {
+            Object existing = segment.get(key);
+            if (existing == null)
+                segment.put(key, value);
+            return existing;
+        }
+    }
+
+    private IdentityTable segmentOf(Object key) {
+        /* the segment is taken from the highest bits of a multiplicative hash, independent of the index in it */
+        return segments[(System.identityHashCode(key) * 0x9E3779B9) >>> (32 - SEGMENT_BITS)];
+    }
+}
@@ -23,6 +23,7 @@ package net.datenwerke.transloader.clone.reflect.internal;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import net.datenwerke.transloader.clone.reflect.decide.CloningDecisionStrategy;
 import net.datenwerke.transloader.clone.reflect.instantiate.CloneInstantiater;
@@ -36,6 +37,7 @@ public class DefaultCloner implements InternalCloner {
     private final CloningDecisionStrategy decider;
     private final CloneInstantiater instantiater;
     private final ReferenceReflecter reflecter;
+    private final ForkJoinPool pool;
 
     /**
      * Constructs a new <code>InternalCloner</code> with its dependencies injected.
@@ -49,6 +51,26 @@ public class DefaultCloner implements InternalCloner {
         this.decider = decider;
         this.instantiater = instantiater;
         this.reflecter = reflecter;
+        this.pool = null;
+    }
+
+    /**
+     * Constructs a new <code>InternalCloner</code> which clones object graphs in parallel on the given pool. The
+     * strategies injected have to be safe for use by several threads at once.
+     *
+     * @param decider      the strategy by which the decision to clone or not to clone a particular given object is made
+     * @param instantiater the strategy by which to instantiate shallow clones
+     * @param reflecter    the stategy by which {@link net.datenwerke.transloader.reference.Reference}s are are created
+     * @param pool         the pool on whose threads to clone
+     * @see ParallelCloneGraphOperation
+     */
+    public DefaultCloner(CloningDecisionStrategy decider, CloneInstantiater instantiater, ReferenceReflecter reflecter, ForkJoinPool pool) {
+        Assert.areNotNull(decider, instantiater, reflecter);
+        Assert.isNotNull(pool);
+        this.decider = decider;
+        this.instantiater = instantiater;
+        this.reflecter = reflecter;
+        this.pool = pool;
     }
 
     public Map mapReferencesFrom(Object original) throws IllegalAccessException {
@@ -67,4 +89,12 @@ public class DefaultCloner implements InternalCloner {
         Assert.areNotNull(references, clones);
         new SetCloneReferencesOperation(references, clones);
     }
+
+    public Object cloneGraphOf(Object original, ClassLoader targetLoader) throws Exception {
+        Assert.areNotNull(original, targetLoader);
+        if (pool != null)
+            return new ParallelCloneGraphOperation(original, targetLoader, decider, instantiater, reflecter, pool).getClone();
+        CloneGraphOperation operation = new CloneGraphOperation(original, targetLoader, decider, instantiater, reflecter);
+        return operation.getClone();
+    }
 }
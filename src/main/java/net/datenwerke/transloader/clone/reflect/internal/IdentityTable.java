@@ -0,0 +1,123 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.clone.reflect.internal;
+
+
+import net.datenwerke.transloader.except.Assert;
+
+/**
+ * A minimal identity map from originals to their clones using open addressing with linear probing over a single array
+ * of alternating keys and values. Unlike {@link org.apache.commons.collections.map.IdentityMap} it allocates no entry
+ * object per mapping. Entries cannot be removed.
+ *
+ * @author arno
+ */
+public final class IdentityTable {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private Object[] table;
+    private int size;
+
+    public IdentityTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an <code>IdentityTable</code> able to hold the given number of mappings without growing.
+     *
+     * @param expectedSize the number of mappings expected
+     */
+    public IdentityTable(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * 2 < expectedSize * 3)
+            capacity <<= 1;
+        table = new Object[capacity * 2];
+    }
+
+    /**
+     * Retrieves the value mapped to the given key.
+     *
+     * @param key the key to look up
+     * @return the value mapped to <code>key</code> or <code>null</code> if there is none
+     */
+    public Object get(Object key) {
+        Object[] tab = table;
+        int mask = tab.length - 1;
+        for (int i = indexOf(key, mask); ; i = (i + 2) & mask) {
+            Object candidate = tab[i];
+            if (candidate == key)
+                return tab[i + 1];
+            if (candidate == null)
+                return null;
+        }
+    }
+
+    /**
+     * Maps the given key to the given value, replacing any previous mapping.
+     *
+     * @param key   the key, compared by identity
+     * @param value the value (must not be <code>null</code>)
+     */
+    public void put(Object key, Object value) {
+        Assert.areNotNull(key, value);
+        Object[] tab = table;
+        int mask = tab.length - 1;
+        int i = indexOf(key, mask);
+        for (Object candidate = tab[i]; candidate != null; candidate = tab[i]) {
+            if (candidate == key) {
+                tab[i + 1] = value;
+                return;
+            }
+            i = (i + 2) & mask;
+        }
+        tab[i] = key;
+        tab[i + 1] = value;
+        if (++size * 3 > tab.length)
+            resize();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        Object[] old = table;
+        Object[] tab = new Object[old.length * 2];
+        int mask = tab.length - 1;
+        for (int j = 0; j < old.length; j += 2) {
+            Object key = old[j];
+            if (key == null)
+                continue;
+            int i = indexOf(key, mask);
+            while (tab[i] != null)
+                i = (i + 2) & mask;
+            tab[i] = key;
+            tab[i + 1] = old[j + 1];
+        }
+        table = tab;
+    }
+
+    private static int indexOf(Object key, int mask) {
+        int h = System.identityHashCode(key);
+        /* spread the bits and make the index even */
+        return ((h << 1) - (h << 8)) & mask;
+    }
+}
@@ -30,4 +30,5 @@ public interface InternalCloner {
     Map mapReferencesFrom(Object original) throws IllegalAccessException;
     Map mapClonesOf(Set originals, ClassLoader targetLoader) throws Exception;
     void setClonesIn(Map references, Map clones) throws NoSuchFieldException;
+    Object cloneGraphOf(Object original, ClassLoader targetLoader) throws Exception;
 }
@@ -0,0 +1,207 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.clone.reflect.internal;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import net.datenwerke.transloader.ClassResolver;
+import net.datenwerke.transloader.clone.reflect.decide.CloningDecisionStrategy;
+import net.datenwerke.transloader.clone.reflect.instantiate.CloneInstantiater;
+import net.datenwerke.transloader.except.Assert;
+import net.datenwerke.transloader.reference.Reference;
+import net.datenwerke.transloader.reference.ReferenceDescription;
+import net.datenwerke.transloader.reference.ReferenceReflecter;
+
+/**
+ * Clones an object graph like {@link CloneGraphOperation}, but on the threads of a {@link ForkJoinPool}. Large arrays,
+ * and thereby the collections backed by them, are split into ranges and work lists that grow long are halved, the
+ * parts being cloned in parallel. Each object is still cloned exactly once, as whichever thread first maps an original
+ * to its clone in the shared {@link ConcurrentIdentityTable} is the one setting the clone's references.
+ *
+ * @author arno
+ */
+public final class ParallelCloneGraphOperation {
+    /* arrays longer than this are split into ranges of at most this length */
+    private static final int ARRAY_RANGE = 4096;
+    /* work lists holding more objects than this are halved, if there are threads to take the other half */
+    private static final int MAX_PENDING = 1024;
+
+    private final ClassLoader targetLoader;
+    private final ClassResolver targetResolver;
+    private final CloningDecisionStrategy decider;
+    private final CloneInstantiater instantiater;
+    private final ReferenceReflecter reflecter;
+
+    private final ConcurrentIdentityTable clones = new ConcurrentIdentityTable();
+    private final Object clone;
+
+    public ParallelCloneGraphOperation(Object original, ClassLoader targetLoader, CloningDecisionStrategy decider, CloneInstantiater instantiater, ReferenceReflecter reflecter, ForkJoinPool pool) throws Exception {
+        Assert.areNotNull(original, targetLoader, decider, instantiater, reflecter);
+        Assert.isNotNull(pool);
+        this.targetLoader = targetLoader;
+        this.targetResolver = new ClassResolver(targetLoader);
+        this.decider = decider;
+        this.instantiater = instantiater;
+        this.reflecter = reflecter;
+        List pending = new ArrayList();
+        clone = cloneOf(original, pending);
+        if (pending.isEmpty())
+            return;
+        try {
+            pool.invoke(new CloneTask(pending));
+        } catch (CloneFailure e) {
+            /* the pool may have wrapped the failure from another thread in a copy of itself */
+            Throwable cause = e;
+            while (cause instanceof CloneFailure)
+                cause = cause.getCause();
+            throw (Exception) cause;
+        }
+    }
+
+    private Object cloneOf(Object original, List pending) throws Exception {
+        Object clone = clones.get(original);
+        if (clone != null)
+            return clone;
+        clone = CloneGraphOperation.shallowCloneOf(original, decider, instantiater, targetResolver);
+        Object existing = clones.putIfAbsent(original, clone);
+        if (existing != null)
+            return existing;
+        if (CloneGraphOperation.needsReferencesSet(original, clone, decider, targetLoader)) {
+            pending.add(original);
+            pending.add(clone);
+        }
+        return clone;
+    }
+
+    public Object getClone() {
+        return clone;
+    }
+
+    private final class CloneTask extends RecursiveAction {
+        private final List pending;
+        private final Object[] originalElements;
+        private final Object[] cloneElements;
+        private final int from;
+        private final int to;
+        private final List forked = new ArrayList();
+
+        private CloneTask(List pending) {
+            this(pending, null, null, 0, 0);
+        }
+
+        private CloneTask(Object[] originalElements, Object[] cloneElements, int from, int to) {
+            this(new ArrayList(), originalElements, cloneElements, from, to);
+        }
+
+        private CloneTask(List pending, Object[] originalElements, Object[] cloneElements, int from, int to) {
+            this.pending = pending;
+            this.originalElements = originalElements;
+            this.cloneElements = cloneElements;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            boolean joined = false;
+            try {
+                if (originalElements != null)
+                    setElementsIn(originalElements, cloneElements, from, to);
+                while (!pending.isEmpty()) {
+                    Object nextClone = pending.remove(pending.size() - 1);
+                    Object nextOriginal = pending.remove(pending.size() - 1);
+                    setReferencesIn(nextOriginal, nextClone);
+                    if (pending.size() > 2 * MAX_PENDING && getSurplusQueuedTaskCount() == 0)
+                        forkHalf();
+                }
+                for (int i = forked.size() - 1; i >= 0; i--)
+                    ((ForkJoinTask) forked.get(i)).join();
+                joined = true;
+            } catch (CloneFailure e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CloneFailure(e);
+            } finally {
+                if (!joined)
+                    abandonForked();
+            }
+        }
+
+        /* stops the subtasks of a failed task such that none of them keeps writing into the abandoned clone graph */
+        private void abandonForked() {
+            for (int i = forked.size() - 1; i >= 0; i--) {
+                ForkJoinTask task = (ForkJoinTask) forked.get(i);
+                task.cancel(false);
+                task.quietlyJoin();
+            }
+        }
+
+        /* hands the oldest half of the work list, i.e. the widest part of the graph seen, to another thread */
+        private void forkHalf() {
+            List oldest = pending.subList(0, pending.size() / 4 * 2);
+            forked.add(new CloneTask(new ArrayList(oldest)).fork());
+            oldest.clear();
+        }
+
+        private void setReferencesIn(Object original, Object clone) throws Exception {
+            if (original instanceof Object[]) {
+                Object[] elements = (Object[]) original;
+                for (int start = ARRAY_RANGE; start < elements.length; start += ARRAY_RANGE)
+                    forked.add(new CloneTask(elements, (Object[]) clone, start, Math.min(start + ARRAY_RANGE, elements.length)).fork());
+                setElementsIn(elements, (Object[]) clone, 0, Math.min(ARRAY_RANGE, elements.length));
+                return;
+            }
+            Reference[] references = reflecter.reflectReferencesFrom(original);
+            for (int i = 0; i < references.length; i++) {
+                Object value = references[i].getValue();
+                if (value == Reference.NULL)
+                    continue;
+                ReferenceDescription description = references[i].getDescription();
+                Object cloneValue = description.isOfPrimitiveType() ? value : cloneOf(value, pending);
+                if (clone != original || cloneValue != value)
+                    description.setValueIn(clone, cloneValue);
+            }
+        }
+
+        private void setElementsIn(Object[] original, Object[] clone, int from, int to) throws Exception {
+            for (int i = from; i < to; i++) {
+                if (original[i] == null)
+                    continue;
+                Object cloneValue = cloneOf(original[i], pending);
+                if (clone[i] != cloneValue)
+                    clone[i] = cloneValue;
+            }
+        }
+    }
+
+    /* carries checked exceptions out of the pool */
+    private static final class CloneFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private CloneFailure(Exception cause) {
+            super(cause);
+        }
+    }
+}
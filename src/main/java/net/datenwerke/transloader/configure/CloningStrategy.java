@@ -20,7 +20,15 @@
 
 package net.datenwerke.transloader.configure;
 
+import java.util.concurrent.ForkJoinPool;
+
+import net.datenwerke.transloader.clone.bytecode.BytecodeCloningStrategy;
 import net.datenwerke.transloader.clone.reflect.ReflectionCloningStrategy;
+import net.datenwerke.transloader.clone.reflect.decide.ImmutableTypes;
+import net.datenwerke.transloader.clone.reflect.decide.MaximalCloningDecisionStrategy;
+import net.datenwerke.transloader.clone.reflect.decide.MinimalCloningDecisionStrategy;
+import net.datenwerke.transloader.clone.reflect.instantiate.DefaultInstantiater;
+import net.datenwerke.transloader.clone.reflect.instantiate.ObjenesisInstantiationStrategy;
 
 /**
  * @author jeremywales
@@ -62,6 +70,21 @@ public final class CloningStrategy {
      */
     public static final net.datenwerke.transloader.clone.CloningStrategy MAXIMAL = new ReflectionCloningStrategy(InternalCloner.MAXIMAL);
 
+    /**
+     * Decides like {@link #MINIMAL} but copies fields through generated code instead of Java Reflection, which pays off
+     * for object graphs with many objects of the same <code>Class</code>es.
+     *
+     * @see net.datenwerke.transloader.clone.bytecode.BytecodeCloningStrategy
+     */
+    public static final net.datenwerke.transloader.clone.CloningStrategy MINIMAL_GENERATED = new BytecodeCloningStrategy(new MinimalCloningDecisionStrategy(), CloneInstantiater.DEFAULT);
+
+    /**
+     * Decides like {@link #MAXIMAL} but copies fields through generated code instead of Java Reflection.
+     *
+     * @see net.datenwerke.transloader.clone.bytecode.BytecodeCloningStrategy
+     */
+    public static final net.datenwerke.transloader.clone.CloningStrategy MAXIMAL_GENERATED = new BytecodeCloningStrategy(new MaximalCloningDecisionStrategy(), CloneInstantiater.DEFAULT);
+
     private CloningStrategy() {}
     
     /**
@@ -76,4 +99,56 @@ public final class CloningStrategy {
     public static net.datenwerke.transloader.clone.CloningStrategy newMinimalInstance(){
     	return new ReflectionCloningStrategy(InternalCloner.newMinimalInstance());
     }
+
+    /**
+     * A fresh minimal instance which, in addition to the defaults, passes through instances of the given immutable
+     * types without considering the objects they reference.
+     * 
+     * @see #newMinimalInstance()
+     * @see ImmutableTypes
+     */
+    public static net.datenwerke.transloader.clone.CloningStrategy newMinimalInstance(ImmutableTypes immutables){
+    	return new ReflectionCloningStrategy(InternalCloner.newMinimalInstance(immutables));
+    }
+
+    /**
+     * A similar implementation to MINIMAL_GENERATED but with a fresh objenesis cache.
+     *
+     * @see #MINIMAL_GENERATED
+     * @see #newMinimalInstance()
+     */
+    public static net.datenwerke.transloader.clone.CloningStrategy newMinimalGeneratedInstance(){
+    	return newMinimalGeneratedInstance(ImmutableTypes.DEFAULT);
+    }
+
+    /**
+     * A fresh generated minimal instance passing through the given immutable types.
+     *
+     * @see #newMinimalGeneratedInstance()
+     * @see ImmutableTypes
+     */
+    public static net.datenwerke.transloader.clone.CloningStrategy newMinimalGeneratedInstance(ImmutableTypes immutables){
+    	return new BytecodeCloningStrategy(new MinimalCloningDecisionStrategy(immutables), new DefaultInstantiater(new ObjenesisInstantiationStrategy()));
+    }
+
+    /**
+     * A fresh minimal instance passing through the given immutable types which clones large object graphs in parallel
+     * on the threads of the given pool. Only pays off for graphs with very many objects.
+     *
+     * @see #newMinimalInstance(ImmutableTypes)
+     * @see net.datenwerke.transloader.clone.reflect.internal.ParallelCloneGraphOperation
+     */
+    public static net.datenwerke.transloader.clone.CloningStrategy newParallelMinimalInstance(ImmutableTypes immutables, ForkJoinPool pool){
+    	return new ReflectionCloningStrategy(InternalCloner.newParallelMinimalInstance(immutables, pool));
+    }
+
+    /**
+     * Clones like {@link #MAXIMAL} but in parallel on the threads of the given pool.
+     *
+     * @see #MAXIMAL
+     * @see net.datenwerke.transloader.clone.reflect.internal.ParallelCloneGraphOperation
+     */
+    public static net.datenwerke.transloader.clone.CloningStrategy newParallelMaximalInstance(ForkJoinPool pool){
+    	return new ReflectionCloningStrategy(InternalCloner.newParallelMaximalInstance(pool));
+    }
 }
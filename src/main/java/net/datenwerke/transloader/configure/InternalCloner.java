@@ -20,6 +20,9 @@
 
 package net.datenwerke.transloader.configure;
 
+import java.util.concurrent.ForkJoinPool;
+
+import net.datenwerke.transloader.clone.reflect.decide.ImmutableTypes;
 import net.datenwerke.transloader.clone.reflect.decide.MaximalCloningDecisionStrategy;
 import net.datenwerke.transloader.clone.reflect.decide.MinimalCloningDecisionStrategy;
 import net.datenwerke.transloader.clone.reflect.instantiate.DefaultInstantiater;
@@ -54,10 +57,57 @@ public class InternalCloner {
      * @return
      */
 	public static net.datenwerke.transloader.clone.reflect.internal.InternalCloner newMinimalInstance() {
+		return newMinimalInstance(ImmutableTypes.DEFAULT);
+	}
+
+	/**
+	 * A fresh minimal instance passing through the given immutable types.
+	 * 
+	 * @author arno
+	 * 
+	 * @param immutables
+	 * @return
+	 */
+	public static net.datenwerke.transloader.clone.reflect.internal.InternalCloner newMinimalInstance(ImmutableTypes immutables) {
 		 return new DefaultCloner(
-                  new MinimalCloningDecisionStrategy(),
+                  new MinimalCloningDecisionStrategy(immutables),
                   new DefaultInstantiater(new ObjenesisInstantiationStrategy()),
                   ReferenceReflecter.DEFAULT
           );
 	}
+
+	/**
+	 * A fresh minimal instance passing through the given immutable types, which clones on the threads of the given pool.
+	 * 
+	 * @author arno
+	 * 
+	 * @param immutables
+	 * @param pool
+	 * @return
+	 */
+	public static net.datenwerke.transloader.clone.reflect.internal.InternalCloner newParallelMinimalInstance(ImmutableTypes immutables, ForkJoinPool pool) {
+		 return new DefaultCloner(
+                  new MinimalCloningDecisionStrategy(immutables),
+                  new DefaultInstantiater(new ObjenesisInstantiationStrategy()),
+                  ReferenceReflecter.DEFAULT,
+                  pool
+          );
+	}
+
+	/**
+	 * A maximal instance which clones on the threads of the given pool.
+	 * 
+	 * @author arno
+	 * 
+	 * @param pool
+	 * @return
+	 */
+	public static net.datenwerke.transloader.clone.reflect.internal.InternalCloner newParallelMaximalInstance(ForkJoinPool pool) {
+		 return new DefaultCloner(
+                  new MaximalCloningDecisionStrategy(),
+                  CloneInstantiater.DEFAULT,
+                  ReferenceReflecter.DEFAULT,
+                  pool
+          );
+	}
 }
@@ -0,0 +1,138 @@
+/*
+*  transloader
+*    
+*  This file is part of transloader http://code.google.com/p/transloader/ as part
+*  of the java-sandbox https://sourceforge.net/p/dw-sandbox/
+*
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+package net.datenwerke.transloader.reference.field;
+
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.datenwerke.transloader.except.Assert;
+
+/**
+ * Caches the accessible instance <code>Field</code>s of a <code>Class</code> and its superclasses so that the
+ * hierarchy is walked and {@link Field#setAccessible(boolean)} is called only once per <code>Class</code>. The fields
+ * are split into those of primitive type and those referencing objects.
+ * <p>
+ * The fields are attached to their <code>Class</code> through a {@link ClassValue}, so a cached entry lives exactly
+ * as long as the <code>Class</code> itself and does not keep the <code>Class</code> or its <code>ClassLoader</code>
+ * in memory. The returned arrays are shared and must not be modified.
+ * </p>
+ *
+ * @author arno
+ */
+public final class FieldCache {
+    private static final ClassValue CACHE = new ClassValue() {
+        protected Object computeValue(Class type) {
+            return new Slots(type);
+        }
+    };
+
+    private FieldCache() {}
+
+    /**
+     * Retrieves all instance fields of the given <code>Class</code> and its superclasses, primitive fields first.
+     *
+     * @param type the <code>Class</code> whose fields to retrieve
+     * @return the accessible instance fields of <code>type</code>
+     */
+    public static Field[] getInstanceFieldsOf(Class type) {
+        return slotsOf(type).all;
+    }
+
+    /**
+     * Retrieves the instance fields of primitive type of the given <code>Class</code> and its superclasses.
+     *
+     * @param type the <code>Class</code> whose fields to retrieve
+     * @return the accessible primitive instance fields of <code>type</code>
+     */
+    public static Field[] getPrimitiveFieldsOf(Class type) {
+        return slotsOf(type).primitives;
+    }
+
+    /**
+     * Retrieves the instance fields referencing objects of the given <code>Class</code> and its superclasses.
+     *
+     * @param type the <code>Class</code> whose fields to retrieve
+     * @return the accessible non-primitive instance fields of <code>type</code>
+     */
+    public static Field[] getReferenceFieldsOf(Class type) {
+        return slotsOf(type).references;
+    }
+
+    /**
+     * Retrieves the {@link FieldDescription}s for all instance fields of the given <code>Class</code>, built once per
+     * <code>Class</code> and <code>FieldSetter</code>.
+     *
+     * @param type   the <code>Class</code> whose fields to describe
+     * @param setter the strategy by which the described fields are set
+     * @return the descriptions of the instance fields of <code>type</code>, primitive fields first
+     */
+    public static FieldDescription[] getDescriptionsOf(Class type, FieldSetter setter) {
+        Assert.isNotNull(setter);
+        return slotsOf(type).descriptionsFor(setter);
+    }
+
+    private static Slots slotsOf(Class type) {
+        Assert.isNotNull(type);
+        return (Slots) CACHE.get(type);
+    }
+
+    private static final class Slots {
+        private final Field[] primitives;
+        private final Field[] references;
+        private final Field[] all;
+        private final Map descriptions = new IdentityHashMap(2);
+
+        private Slots(Class type) {
+            List primitiveFields = new ArrayList();
+            List referenceFields = new ArrayList();
+            for (Class current = type; current != null; current = current.getSuperclass()) {
+                Field[] fields = current.getDeclaredFields();
+                for (int i = 0; i < fields.length; i++) {
+                    if (Modifier.isStatic(fields[i].getModifiers()))
+                        continue;
+                    fields[i].setAccessible(true);
+                    (fields[i].getType().isPrimitive() ? primitiveFields : referenceFields).add(fields[i]);
+                }
+            }
+            primitives = (Field[]) primitiveFields.toArray(new Field[primitiveFields.size()]);
+            references = (Field[]) referenceFields.toArray(new Field[referenceFields.size()]);
+            all = new Field[primitives.length + references.length];
+            System.arraycopy(primitives, 0, all, 0, primitives.length);
+            System.arraycopy(references, 0, all, primitives.length, references.length);
+        }
+
+        private synchronized FieldDescription[] descriptionsFor(FieldSetter setter) {
+            FieldDescription[] result = (FieldDescription[]) descriptions.get(setter);
+            if (result == null) {
+                result = new FieldDescription[all.length];
+                for (int i = 0; i < all.length; i++)
+                    result[i] = new FieldDescription(all[i], setter);
+                descriptions.put(setter, result);
+            }
+            return result;
+        }
+    }
+}
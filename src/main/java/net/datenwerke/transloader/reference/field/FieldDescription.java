@@ -39,6 +39,8 @@ public final class FieldDescription implements ReferenceDescription {
     private final boolean isPrimitive;
     private final boolean isTransient;
     private final FieldSetter setter;
+    private final Field field;
+    private volatile Field foreignField;
 
     /**
      * Constructs a <code>FieldDescription</code> derived from the given <code>Field</code>.
@@ -52,8 +54,10 @@ public final class FieldDescription implements ReferenceDescription {
                 field.getName(),
                 field.getType().isPrimitive(),
                 Modifier.isTransient(field.getModifiers()),
-                setter
+                setter,
+                field
         );
+        field.setAccessible(true);
     }
 
     /**
@@ -67,12 +71,17 @@ public final class FieldDescription implements ReferenceDescription {
      * @param setter             the strategy by which the value of the field is set
      */
     public FieldDescription(String declaringClassName, String fieldName, boolean isPrimitive, boolean isTransient, FieldSetter setter) {
+        this(declaringClassName, fieldName, isPrimitive, isTransient, setter, null);
+    }
+
+    private FieldDescription(String declaringClassName, String fieldName, boolean isPrimitive, boolean isTransient, FieldSetter setter, Field field) {
         Assert.areNotNull(declaringClassName, fieldName, setter);
         this.declaringClassName = declaringClassName;
         this.fieldName = fieldName;
         this.isPrimitive = isPrimitive;
         this.isTransient = isTransient;
         this.setter = setter;
+        this.field = field;
     }
 
     /**
@@ -137,9 +146,17 @@ public final class FieldDescription implements ReferenceDescription {
 
     private Field getFieldFrom(Object referer) throws NoSuchFieldException {
         Class refererClass = referer.getClass();
+        if (field != null && field.getDeclaringClass().isAssignableFrom(refererClass))
+            return field;
+        // the same description is typically used to set the field on clones from one other ClassLoader
+        Field foreign = foreignField;
+        if (foreign != null && foreign.getDeclaringClass().isAssignableFrom(refererClass))
+            return foreign;
         Class declaringClass = findMatchingClassFrom(refererClass);
         checkClassWasFoundFrom(refererClass, declaringClass);
-        return getFieldFrom(declaringClass);
+        foreign = getFieldFrom(declaringClass);
+        foreignField = foreign;
+        return foreign;
     }
 
     private Field getFieldFrom(Class declaringClass) throws NoSuchFieldException {
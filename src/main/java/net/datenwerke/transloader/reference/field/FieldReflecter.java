@@ -21,11 +21,6 @@
 package net.datenwerke.transloader.reference.field;
 
 
-import java.util.List;
-import java.util.ArrayList;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-
 import net.datenwerke.transloader.except.Assert;
 import net.datenwerke.transloader.reference.AbstractReflecter;
 import net.datenwerke.transloader.reference.ReferenceDescription;
@@ -43,29 +38,6 @@ public final class FieldReflecter extends AbstractReflecter {
     }
 
     public ReferenceDescription[] getAllReferenceDescriptions() throws IllegalAccessException {
-        return getAllInstanceFieldDescriptionsFor(object.getClass());
-    }
-
-    private FieldDescription[] getAllInstanceFieldDescriptionsFor(Class currentClass) {
-        List descriptions = new ArrayList();
-        while (currentClass != null) {
-            List currentDescriptions = getDescriptionsDirectlyFrom(currentClass);
-            descriptions.addAll(currentDescriptions);
-            currentClass = currentClass.getSuperclass();
-        }
-        return (FieldDescription[]) descriptions.toArray(new FieldDescription[descriptions.size()]);
-    }
-
-    private List getDescriptionsDirectlyFrom(Class currentClass) {
-        Field[] fields = currentClass.getDeclaredFields();
-        List descriptions = new ArrayList(fields.length);
-        for (int i = 0; i < fields.length; i++)
-            if (isInstance(fields[i]))
-                descriptions.add(new FieldDescription(fields[i], setter));
-        return descriptions;
-    }
-
-    private boolean isInstance(Field field) {
-        return !Modifier.isStatic(field.getModifiers());
+        return FieldCache.getDescriptionsOf(object.getClass(), setter);
     }
 }